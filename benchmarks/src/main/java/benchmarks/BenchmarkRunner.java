@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler, so that the allocation rate is reported next to the throughput
+ * and the percentiles. Any JMH option can be given, such as a benchmark regex or <em>-p cells=1000</em>.
+ * Datasets are generated under the temporary directory from the templates in <em>res</em> (or in the
+ * directory of the <em>graphane.templates</em> property), so run it from the root of the repository.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty())
+            options.include("benchmarks\\..*");
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+
+}
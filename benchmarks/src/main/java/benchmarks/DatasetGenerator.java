@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Generates synthetic datasets with the layout of the res directory: any number of cells, each with a POSCAR
+ * copied from one of the real 4-site cells and an Etot sweep of any length. Synthetic codes are a real code
+ * followed by a dash and a letter label (such as <em>1122-bq</em>): the site digits stay those of the
+ * template and the label only names the copy, in the entry table and in the file names.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class DatasetGenerator {
+
+    private static final String[] templateCodes = {"0000", "0001", "0011", "1122"};
+    private static final double[] templateEnergies = {-40.410485, -42.214925, -48.139066, -55.374149};
+    private static final double curvature = 146.0;
+    private static final double sweepWidth = 0.016;
+    private static final String completeMarker = ".complete";
+
+    private final Path templates;
+
+    /**
+     * @param templates the res directory the KPOINTS, INCAR and template POSCARs are copied from.
+     */
+    public DatasetGenerator(Path templates) {
+        this.templates = templates;
+    }
+
+    public DatasetGenerator() {
+        this(Paths.get(System.getProperty("graphane.templates", "res")));
+    }
+
+    /**
+     * Generates a dataset, unless a complete one with the same size already exists.
+     *
+     * @param cells       the number of cells.
+     * @param sweepLength the number of lattice parameters in each Etot sweep.
+     * @return the res-like directory of the dataset.
+     * @throws IOException if the dataset could not be written.
+     */
+    public Path generate(int cells, int sweepLength) throws IOException {
+        Path root = Paths.get(System.getProperty("java.io.tmpdir"), "graphane-bench",
+                "cells-" + cells + "-sweep-" + sweepLength);
+        if (Files.exists(root.resolve(completeMarker)))
+            return root;
+        Path io = Files.createDirectories(root.resolve("io"));
+        Path poscar = Files.createDirectories(root.resolve("poscar"));
+        Path results = Files.createDirectories(root.resolve("etot/results"));
+        Files.copy(templates.resolve("io/KPOINTS"), io.resolve("KPOINTS"), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(templates.resolve("io/INCAR"), io.resolve("INCAR"), StandardCopyOption.REPLACE_EXISTING);
+        try (BufferedWriter entries = Files.newBufferedWriter(io.resolve("current_entry.txt"), StandardCharsets.UTF_8)) {
+            for (int cell = 0; cell < cells; cell++) {
+                int template = cell % templateCodes.length;
+                String code = code(cell);
+                entries.write(code + " 1\n");
+                Files.copy(templates.resolve("poscar/POSCAR" + templateCodes[template]), poscar.resolve("POSCAR" + code),
+                        StandardCopyOption.REPLACE_EXISTING);
+                writeSweep(results.resolve(code + ".dat"), templateEnergies[template], sweepLength, cell);
+            }
+        }
+        Files.createFile(root.resolve(completeMarker));
+        return root;
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @return the code of the cell: the code of its template, then a letter label if it is not the first copy.
+     */
+    public static String code(int cell) {
+        String code = templateCodes[cell % templateCodes.length];
+        int copy = cell / templateCodes.length;
+        if (copy == 0)
+            return code;
+        StringBuilder label = new StringBuilder();
+        for (; copy > 0; copy /= 26)
+            label.append((char) ('a' + copy % 26));
+        return code + "-" + label.reverse();
+    }
+
+    private static void writeSweep(Path file, double minimum, int sweepLength, int seed) throws IOException {
+        double step = sweepLength > 1 ? sweepWidth / (sweepLength - 1) : 0.0;
+        int decimals = step > 0.0 ? Math.max(3, (int) Math.ceil(-Math.log10(step) - 1e-9)) : 3;
+        String parameterFormat = "%." + decimals + "f";
+        double start = 1.404 + 0.001 * (seed % 8);
+        double ideal = start + 0.5 * sweepWidth;
+        try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            double previous = 0.0;
+            for (int i = 0; i < sweepLength; i++) {
+                double parameter = start + i * step;
+                double energy = minimum + curvature * (parameter - ideal) * (parameter - ideal);
+                String fortran = fortran(energy);
+                bw.write(String.format(Locale.ROOT, parameterFormat, parameter) + " 1 F= " + fortran + " E0= " + fortran
+                        + " d E =" + fortran(energy - previous) + "\n");
+                previous = energy;
+            }
+        }
+    }
+
+    /**
+     * @param value a number.
+     * @return the number written the way VASP does, such as <em>-.40400908E+02</em>.
+     */
+    static String fortran(double value) {
+        if (value == 0.0)
+            return "0.00000000E+00";
+        double magnitude = Math.abs(value);
+        int exponent = (int) Math.floor(Math.log10(magnitude)) + 1;
+        long digits = Math.round(magnitude / Math.pow(10, exponent) * 1e8);
+        if (digits >= 100000000L) {
+            digits /= 10;
+            exponent++;
+        }
+        return String.format(Locale.ROOT, "%s.%08dE%s%02d", value < 0 ? "-" : "", digits,
+                exponent < 0 ? "-" : "+", Math.abs(exponent));
+    }
+
+    /**
+     * Generates a dataset from the command line.
+     *
+     * @param args the number of cells and the sweep length.
+     */
+    public static void main(String[] args) throws IOException {
+        int cells = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int sweepLength = args.length > 1 ? Integer.parseInt(args[1]) : 17;
+        System.out.println(new DatasetGenerator().generate(cells, sweepLength));
+    }
+
+}
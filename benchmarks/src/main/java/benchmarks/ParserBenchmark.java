@@ -0,0 +1,92 @@
+package benchmarks;
+
+import basics.BasicParser;
+import bounds.Cell;
+import energy.EtotCurve;
+import energy.EtotParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of parsing one cell: its Etot sweep, its energy analysis and its POSCAR geometry.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final String cellCode = "1122";
+
+    @Param({"17", "1000", "100000"})
+    public int sweepLength;
+
+    private String etotPath;
+    private String poscarPath;
+    private String[][] parsedEtot;
+    private List<Double> energyList;
+
+    @Setup(Level.Trial)
+    public void setDataset() throws IOException {
+        Path root = new DatasetGenerator().generate(4, sweepLength);
+        System.setProperty("graphane.res", root.toString());
+        etotPath = EtotParser.filePathFor(cellCode);
+        poscarPath = Cell.filePathFor(cellCode);
+        parsedEtot = BasicParser.initialParsing(etotPath);
+        energyList = EtotParser.energyList(parsedEtot);
+    }
+
+    @Benchmark
+    public String[][] initialParsingEtot() {
+        return BasicParser.initialParsing(etotPath);
+    }
+
+    @Benchmark
+    public String[][] initialParsingPOSCAR() {
+        return BasicParser.initialParsing(poscarPath);
+    }
+
+    @Benchmark
+    public List<Double> energyList() {
+        return EtotParser.energyList(parsedEtot);
+    }
+
+    @Benchmark
+    public boolean isGlobalMinimum() {
+        return EtotParser.isGlobalMinimum(energyList);
+    }
+
+    @Benchmark
+    public EtotCurve uncachedCurve() {
+        return new EtotCurve(BasicParser.tokenizedFile(etotPath));
+    }
+
+    /**
+     * Cells build their geometry lazily, so the distances are asked for to measure the whole analysis.
+     */
+    @Benchmark
+    public List<Double> cell() {
+        return new Cell(cellCode).getRelevantDistances();
+    }
+
+}
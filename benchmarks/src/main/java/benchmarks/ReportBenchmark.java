@@ -0,0 +1,55 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import report.ReportWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of writing the whole report, from the input list to output.txt.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"4", "1000", "100000"})
+    public int cells;
+
+    @Param({"17"})
+    public int sweepLength;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Setup(Level.Trial)
+    public void setDataset() throws IOException {
+        Path root = new DatasetGenerator().generate(cells, sweepLength);
+        System.setProperty("graphane.res", root.toString());
+    }
+
+    @Benchmark
+    public void run() {
+        new ReportWriter(parallelism).run();
+    }
+
+}
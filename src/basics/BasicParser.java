@@ -1,9 +1,18 @@
 package basics;
 
+import metrics.Metrics;
+
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -14,6 +23,223 @@ import java.util.Scanner;
  */
 public class BasicParser {
 
+    /**
+     * An archive kept open, with the modification time and size the archive file had when it was opened.
+     */
+    private static final class OpenArchive {
+
+        private final InputSource source;
+        private final long lastModified;
+        private final long size;
+
+        OpenArchive(InputSource source, long lastModified, long size) {
+            this.source = source;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+    }
+
+    private static final Map<String, OpenArchive> archives = new HashMap<>();
+
+    /**
+     * Resolves a path inside the resource directory. The directory is <em>res</em> unless the system property
+     * <em>graphane.res</em> points somewhere else, such as a generated dataset or an archived campaign (a
+     * <em>.zip</em>, <em>.tar.gz</em> or <em>.tgz</em> file, read without being extracted).
+     *
+     * @param relativePath the path inside the resource directory.
+     * @return the path to the file.
+     */
+    public static String resourcePath(String relativePath) {
+        return resourceRoot() + "/" + relativePath;
+    }
+
+    /**
+     * @return the resource root, as given by the system property <em>graphane.res</em>.
+     */
+    public static String resourceRoot() {
+        return System.getProperty("graphane.res", "res");
+    }
+
+    /**
+     * @param root a resource root.
+     * @return whether the root is an archive rather than a directory.
+     */
+    public static boolean isArchive(String root) {
+        return ZipSource.accepts(root) || TarGzSource.accepts(root);
+    }
+
+    /**
+     * Archives are opened once and kept open, so that a tar file is inflated only once per run, until they are
+     * closed or the archive file itself changes, as it may under a long-running watcher or server.
+     */
+    private static InputSource archiveAt(String root) throws IOException {
+        File file = new File(root);
+        long lastModified = file.lastModified();
+        long size = file.length();
+        synchronized (archives) {
+            OpenArchive archive = archives.get(root);
+            if (archive != null && (archive.lastModified != lastModified || archive.size != size)) {
+                archives.remove(root);
+                archive.source.close();
+                archive = null;
+            }
+            if (archive == null) {
+                archive = new OpenArchive(InputSource.forRoot(root), lastModified, size);
+                archives.put(root, archive);
+            }
+            return archive.source;
+        }
+    }
+
+    /**
+     * Closes the archive kept open for a resource root, if any, and releases what it holds; it is opened
+     * again the next time a file is read from it.
+     *
+     * @param root the resource root.
+     * @throws IOException if the archive could not be closed.
+     */
+    public static void closeArchive(String root) throws IOException {
+        OpenArchive archive;
+        synchronized (archives) {
+            archive = archives.remove(root);
+        }
+        if (archive != null)
+            archive.source.close();
+    }
+
+    /**
+     * @return the path of a file relative to the archive holding it, or null if it is not inside an archive.
+     */
+    private static String pathInArchive(String filePath) {
+        String root = resourceRoot();
+        if (!isArchive(root) || !filePath.startsWith(root + "/"))
+            return null;
+        String relativePath = Paths.get(filePath.substring(root.length() + 1)).normalize().toString();
+        return relativePath.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @param filePath the file path, which may point inside an archived resource root.
+     * @return whether the file is read from an archive.
+     */
+    public static boolean isArchived(String filePath) {
+        return pathInArchive(filePath) != null;
+    }
+
+    /**
+     * Reads a whole file, which may be inside an archived resource root.
+     *
+     * @param filePath the file path.
+     * @return the bytes of the file, from position zero to the limit.
+     * @throws IOException if the file could not be read.
+     */
+    public static ByteBuffer read(String filePath) throws IOException {
+        String relativePath = pathInArchive(filePath);
+        if (relativePath == null)
+            return ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath)));
+        if (relativePath.startsWith(".."))
+            throw new NoSuchFileException(filePath);
+        return archiveAt(resourceRoot()).read(relativePath);
+    }
+
+    /**
+     * @param filePath the file path, which may point inside an archived resource root.
+     * @return the modification time of the file (in milliseconds), or zero if it does not exist.
+     */
+    public static long lastModified(String filePath) {
+        String relativePath = pathInArchive(filePath);
+        if (relativePath == null)
+            return new File(filePath).lastModified();
+        try {
+            return archiveAt(resourceRoot()).lastModified(relativePath);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * @param filePath the file path, which may point inside an archived resource root.
+     * @return the size of the file (in bytes), or zero if it does not exist.
+     */
+    public static long size(String filePath) {
+        String relativePath = pathInArchive(filePath);
+        if (relativePath == null)
+            return new File(filePath).length();
+        try {
+            return archiveAt(resourceRoot()).size(relativePath);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * @param filePath the file path, which may point inside an archived resource root.
+     * @return whether the file exists.
+     */
+    public static boolean exists(String filePath) {
+        String relativePath = pathInArchive(filePath);
+        if (relativePath == null)
+            return new File(filePath).isFile();
+        try {
+            return !relativePath.startsWith("..") && archiveAt(resourceRoot()).exists(relativePath);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a whole file as a stream, which may be inside an archived resource root.
+     *
+     * @param filePath the file path.
+     * @return a stream over the bytes of the file, without copying them.
+     * @throws IOException if the file could not be read.
+     */
+    public static InputStream inputStream(String filePath) throws IOException {
+        return new BufferInputStream(read(filePath));
+    }
+
+    /**
+     * A stream over the remaining bytes of a buffer.
+     */
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
     /**
      * Raw parsing of lines of a file into a list of lines (strings).
      *
@@ -22,36 +248,56 @@ public class BasicParser {
      */
     public static List<String> parsedLines(String filePath) {
 
-        File etotFile = new File(filePath);
+        long start = Metrics.start();
         List<String> fileLines = new ArrayList<>();
 
-        try {
-            Scanner sc = new Scanner(etotFile);
+        try (InputStream in = inputStream(filePath)) {
+            Metrics.add(Metrics.Counter.BYTES_READ, in.available());
+            Scanner sc = new Scanner(in);
             while (sc.hasNextLine()) {
                 String line = sc.nextLine();
                 if (!line.trim().isEmpty())
                     fileLines.add(line.trim());
             }
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
+        Metrics.stop(Metrics.Stage.PARSE, start);
         return fileLines;
     }
 
     /**
-     * Parses a file into a double array of strings.
+     * Tokenizes a file into whitespace-delimited fields, read straight from its bytes.
+     *
+     * @param filePath the file path.
+     * @return the tokenized file (empty if the file could not be read).
+     */
+    public static TokenizedFile tokenizedFile(String filePath) {
+        long start = Metrics.start();
+        try {
+            TokenizedFile file = isArchived(filePath) ? TokenizedFile.of(read(filePath))
+                    : TokenizedFile.of(Paths.get(filePath));
+            Metrics.add(Metrics.Counter.BYTES_READ, file.byteCount());
+            Metrics.add(Metrics.Counter.TOKENS_PARSED, file.tokenCount());
+            return file;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return TokenizedFile.of(ByteBuffer.allocate(0));
+        } finally {
+            Metrics.stop(Metrics.Stage.PARSE, start);
+        }
+    }
+
+    /**
+     * Parses a file into a double array of strings. Kept for compatibility: numeric callers should read
+     * their values from {@link #tokenizedFile(String)} instead.
      *
      * @param filePath the file path.
      * @return a double array of strings with each value of the file.
      */
     public static String[][] initialParsing(String filePath) {
-        List<String> fileLines = parsedLines(filePath);
-        int lines = fileLines.size();
-        String[][] initialParsing = new String[lines][];
-        for (int i = 0; i < lines; i++)
-            initialParsing[i] = fileLines.get(i).split("\\s+");
-        return initialParsing;
+        return tokenizedFile(filePath).toStringArrays();
     }
 
 }
@@ -0,0 +1,60 @@
+package basics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The resource tree as plain files under a directory, which is the default.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class DirectorySource implements InputSource {
+
+    private final String root;
+
+    public DirectorySource(String root) {
+        this.root = root;
+    }
+
+    private String pathOf(String relativePath) {
+        return root + "/" + relativePath;
+    }
+
+    @Override
+    public ByteBuffer read(String relativePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(pathOf(relativePath)), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too big to be read: " + pathOf(relativePath));
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    @Override
+    public long lastModified(String relativePath) {
+        return new File(pathOf(relativePath)).lastModified();
+    }
+
+    @Override
+    public long size(String relativePath) {
+        return new File(pathOf(relativePath)).length();
+    }
+
+    @Override
+    public boolean exists(String relativePath) {
+        return new File(pathOf(relativePath)).isFile();
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
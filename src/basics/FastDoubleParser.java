@@ -0,0 +1,110 @@
+package basics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight out of a byte buffer, without building a String for each of them. It
+ * understands the Fortran style written by VASP, such as <em>-.55367523E+02</em> or <em>0.1D-03</em>.
+ * <p>
+ * Numbers with up to 15 significant digits and small exponents are converted exactly with a single
+ * multiplication or division; anything else falls back to {@link Double#parseDouble(String)}, so the result
+ * is always the same as the one of {@link Double#valueOf(String)}.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class FastDoubleParser {
+
+    private static final long maxExactMantissa = 1L << 53;
+    private static final double[] powersOfTen = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private FastDoubleParser() {
+    }
+
+    /**
+     * Parses the number between two positions of a buffer.
+     *
+     * @param buffer the buffer holding the number.
+     * @param start  the position of the first byte of the number.
+     * @param end    the position right after the last byte of the number.
+     * @return the double precision value of the number.
+     * @throws NumberFormatException if the bytes are not a number.
+     */
+    public static double parse(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa < maxExactMantissa / 10)
+                    mantissa = mantissa * 10 + (b - '0');
+                else
+                    exact = false;
+                if (dot)
+                    exponent--;
+                if (!exact)
+                    break;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (exact && digits > 0 && i < end && isExponentMark(buffer.get(i))) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int explicit = 0;
+            int exponentDigits = 0;
+            for (; i < end && buffer.get(i) >= '0' && buffer.get(i) <= '9'; i++, exponentDigits++)
+                if (explicit < 1000)
+                    explicit = explicit * 10 + (buffer.get(i) - '0');
+            if (exponentDigits == 0)
+                exact = false;
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (!exact || digits == 0 || i != end || mantissa > maxExactMantissa)
+            return slowParse(buffer, start, end);
+        double value;
+        if (mantissa == 0)
+            value = 0.0;
+        else if (exponent >= 0 && exponent < powersOfTen.length)
+            value = mantissa * powersOfTen[exponent];
+        else if (exponent < 0 && -exponent < powersOfTen.length)
+            value = mantissa / powersOfTen[-exponent];
+        else
+            return slowParse(buffer, start, end);
+        return negative ? -value : value;
+    }
+
+    private static boolean isExponentMark(byte b) {
+        return b == 'E' || b == 'e' || b == 'D' || b == 'd';
+    }
+
+    private static double slowParse(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            byte b = buffer.get(start + i);
+            bytes[i] = b == 'D' || b == 'd' ? (byte) 'E' : b;
+        }
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+}
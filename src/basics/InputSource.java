@@ -0,0 +1,55 @@
+package basics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Where the resource tree is read from: a plain directory, a ZIP file or a gzip-compressed tar file. Paths are
+ * relative to the resource root, with forward slashes, such as <em>poscar/POSCAR0000</em>.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public interface InputSource extends Closeable {
+
+    /**
+     * @param relativePath the path inside the resource tree.
+     * @return the bytes of the file, from position zero to the limit.
+     * @throws java.nio.file.NoSuchFileException if there is no such file.
+     * @throws IOException                       if the file could not be read.
+     */
+    ByteBuffer read(String relativePath) throws IOException;
+
+    /**
+     * @param relativePath the path inside the resource tree.
+     * @return the modification time of the file (in milliseconds), or zero if there is no such file.
+     */
+    long lastModified(String relativePath);
+
+    /**
+     * @param relativePath the path inside the resource tree.
+     * @return the size of the file (in bytes), or zero if there is no such file.
+     */
+    long size(String relativePath);
+
+    /**
+     * @param relativePath the path inside the resource tree.
+     * @return whether there is such a file, found without reading it.
+     */
+    boolean exists(String relativePath);
+
+    /**
+     * @param root a directory, or a file ending in <em>.zip</em>, <em>.tar.gz</em> or <em>.tgz</em>.
+     * @return the source for that root.
+     * @throws IOException if the archive could not be opened.
+     */
+    static InputSource forRoot(String root) throws IOException {
+        if (ZipSource.accepts(root))
+            return new ZipSource(root);
+        if (TarGzSource.accepts(root))
+            return new TarGzSource(root);
+        return new DirectorySource(root);
+    }
+
+}
@@ -0,0 +1,368 @@
+package basics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The resource tree inside a gzip-compressed tar file. A tar file has no index, so it is read in a single
+ * sequential pass by a background thread, started when the source is opened; a read waits only until its
+ * own entry has gone by, so the cells that arrive first can be analyzed while the rest is still inflated.
+ * <p>
+ * The content of an entry is released once it has been read, and the background thread stops inflating
+ * while more than {@value #readAhead} bytes are waiting to be read, unless a read is waiting for an entry
+ * further on; so the heap holds a bounded window of the campaign rather than all of it. Only the size and
+ * modification time of every entry are kept. An entry read a second time is inflated again, in a pass of its
+ * own. Like {@link ZipSource}, the tree may sit under a top directory.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class TarGzSource implements InputSource {
+
+    private static final int blockSize = 512;
+    static final long readAhead = 1 << 26;
+
+    /**
+     * A regular file of the archive, whose content is null once it has been read.
+     */
+    private static final class Entry {
+
+        private final long size;
+        private final long modificationTime;
+        private byte[] content;
+
+        Entry(byte[] content, long modificationTime) {
+            this.size = content.length;
+            this.modificationTime = modificationTime;
+            this.content = content;
+        }
+
+    }
+
+    /**
+     * Handles the regular files of the archive while it is read.
+     */
+    private interface EntryHandler {
+
+        /**
+         * @return whether the archive should be read further.
+         */
+        boolean handle(String name, byte[] content, long modificationTime) throws IOException;
+
+    }
+
+    private final String archive;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Thread reader;
+    private long buffered;
+    private int waiting;
+    private boolean finished;
+    private IOException failure;
+
+    public TarGzSource(String archive) throws IOException {
+        this.archive = archive;
+        if (!Files.isRegularFile(Paths.get(archive)))
+            throw new NoSuchFileException(archive);
+        reader = new Thread(this::readAll, "tar reader for " + archive);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    static boolean accepts(String root) {
+        return root.endsWith(".tar.gz") || root.endsWith(".tgz");
+    }
+
+    private void readAll() {
+        try {
+            scan(this::store);
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+            }
+        } finally {
+            synchronized (this) {
+                finished = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads the archive from the start, handing each regular file to the handler until it asks to stop.
+     */
+    private void scan(EntryHandler handler) throws IOException {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(
+                Files.newInputStream(Paths.get(archive)), 1 << 16), 1 << 16)) {
+            byte[] header = new byte[blockSize];
+            String longName = null;
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!readBlock(in, header) || isZero(header))
+                    break;
+                String name = longName != null ? longName : nameOf(header);
+                longName = null;
+                long size = octal(header, 124, 12);
+                if (size > Integer.MAX_VALUE - 8)
+                    throw new IOException("Entry too big to be read: " + name);
+                byte type = header[156];
+                byte[] content = readFully(in, size);
+                skip(in, (blockSize - size % blockSize) % blockSize);
+                if (type == 'L') {
+                    longName = cString(content, 0, content.length);
+                } else if (type == 'x') {
+                    longName = paxPath(content);
+                } else if (type == '0' || type == '7' || type == 0) {
+                    if (!handler.handle(name, content, 1000L * octal(header, 136, 12)))
+                        break;
+                }
+            }
+        }
+    }
+
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int read = 0;
+        while (read < block.length) {
+            int count = in.read(block, read, block.length - read);
+            if (count < 0) {
+                if (read == 0)
+                    return false;
+                throw new EOFException("Truncated tar header");
+            }
+            read += count;
+        }
+        return true;
+    }
+
+    private static boolean isZero(byte[] block) {
+        for (byte b : block)
+            if (b != 0)
+                return false;
+        return true;
+    }
+
+    private static String nameOf(byte[] header) {
+        String name = cString(header, 0, 100);
+        String prefix = cString(header, 345, 155);
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0)
+            end++;
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a numeric field, either in octal or, for GNU tar, in base 256 when the first bit is set.
+     */
+    private static long octal(byte[] header, int offset, int length) {
+        long value = 0;
+        if ((header[offset] & 0x80) != 0) {
+            value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++)
+                value = (value << 8) | (header[i] & 0xff);
+            return value;
+        }
+        int i = offset;
+        while (i < offset + length && header[i] == ' ')
+            i++;
+        for (; i < offset + length && header[i] >= '0' && header[i] <= '7'; i++)
+            value = 8 * value + (header[i] - '0');
+        return value;
+    }
+
+    /**
+     * @return the path of a POSIX extended header, or null if it has none.
+     */
+    private static String paxPath(byte[] content) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        for (String record : text.split("\n")) {
+            int space = record.indexOf(' ');
+            if (space > 0 && record.startsWith("path=", space + 1))
+                return record.substring(space + 6);
+        }
+        return null;
+    }
+
+    static byte[] readFully(InputStream in, long size) throws IOException {
+        if (size < 0) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1 << 13];
+            for (int read = in.read(chunk); read >= 0; read = in.read(chunk))
+                bytes.write(chunk, 0, read);
+            return bytes.toByteArray();
+        }
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IOException("Entry too big to be read: " + size + " bytes");
+        byte[] content = new byte[(int) size];
+        int read = 0;
+        while (read < content.length) {
+            int count = in.read(content, read, content.length - read);
+            if (count < 0)
+                throw new EOFException("Truncated entry");
+            read += count;
+        }
+        return content;
+    }
+
+    private static void skip(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0)
+                    throw new EOFException("Truncated tar file");
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    /**
+     * @return the names an entry is found by: its own name and, if it has one, its name without the top
+     * directory, so that an archive of the <em>res</em> directory itself can be read like its contents.
+     */
+    private static List<String> namesOf(String name) {
+        if (name.startsWith("./"))
+            name = name.substring(2);
+        List<String> names = new ArrayList<>();
+        names.add(name);
+        int slash = name.indexOf('/');
+        if (slash > 0 && slash < name.length() - 1)
+            names.add(name.substring(slash + 1));
+        return names;
+    }
+
+    /**
+     * Keeps an entry, unless another one already has its name, then waits while too much is kept unread.
+     */
+    private synchronized boolean store(String name, byte[] content, long modificationTime)
+            throws InterruptedIOException {
+        Entry entry = new Entry(content, modificationTime);
+        boolean kept = false;
+        for (String key : namesOf(name))
+            if (entries.putIfAbsent(key, entry) == null)
+                kept = true;
+        if (kept)
+            buffered += entry.size;
+        else
+            entry.content = null;
+        notifyAll();
+        try {
+            while (buffered > readAhead && waiting == 0)
+                wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Stopped reading " + archive);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the entry of a path has been read, or the whole archive has gone by without it.
+     *
+     * @return the entry, or null if there is none.
+     */
+    private synchronized Entry await(String relativePath) throws IOException {
+        waiting++;
+        notifyAll();
+        try {
+            while (true) {
+                Entry entry = entries.get(relativePath);
+                if (entry != null)
+                    return entry;
+                if (finished) {
+                    if (failure != null)
+                        throw new IOException("Could not read " + archive, failure);
+                    return null;
+                }
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + archive);
+        } finally {
+            waiting--;
+        }
+    }
+
+    @Override
+    public ByteBuffer read(String relativePath) throws IOException {
+        Entry entry = await(relativePath);
+        if (entry == null)
+            throw new NoSuchFileException(archive + "!/" + relativePath);
+        synchronized (this) {
+            byte[] content = entry.content;
+            if (content != null) {
+                entry.content = null;
+                buffered -= content.length;
+                notifyAll();
+                return ByteBuffer.wrap(content).asReadOnlyBuffer();
+            }
+        }
+        return ByteBuffer.wrap(inflateAgain(relativePath)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Reads the archive again up to the entry of a path, whose content was already released.
+     */
+    private byte[] inflateAgain(String relativePath) throws IOException {
+        byte[][] found = new byte[1][];
+        scan((name, content, modificationTime) -> {
+            if (namesOf(name).contains(relativePath))
+                found[0] = content;
+            return found[0] == null;
+        });
+        if (found[0] == null)
+            throw new NoSuchFileException(archive + "!/" + relativePath);
+        return found[0];
+    }
+
+    @Override
+    public long lastModified(String relativePath) {
+        try {
+            Entry entry = await(relativePath);
+            return entry == null ? 0L : entry.modificationTime;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    @Override
+    public long size(String relativePath) {
+        try {
+            Entry entry = await(relativePath);
+            return entry == null ? 0L : entry.size;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    @Override
+    public boolean exists(String relativePath) {
+        try {
+            return await(relativePath) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        reader.interrupt();
+    }
+
+}
@@ -0,0 +1,224 @@
+package basics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file split into fields delimited by whitespace and control bytes, kept as offsets into the bytes of the file. Blank lines are
+ * skipped, just like in {@link BasicParser#parsedLines(String)}. Numbers are read straight from the bytes, so
+ * no String is created unless a field is explicitly asked for as text.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class TokenizedFile {
+
+    private static final long mappingThreshold = 1 << 16;
+
+    private final ByteBuffer buffer;
+    private int[] fieldBounds = new int[64];
+    private int[] lineStarts = new int[16];
+    private int fields;
+    private int lines;
+
+    private TokenizedFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        tokenize();
+    }
+
+    /**
+     * Reads and tokenizes a file. Big files are memory-mapped instead of copied to the heap.
+     *
+     * @param path the file path.
+     * @return the tokenized file.
+     * @throws IOException if the file could not be read.
+     */
+    public static TokenizedFile of(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too big to be tokenized: " + path);
+            ByteBuffer buffer;
+            if (size > mappingThreshold) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+                buffer.flip();
+            }
+            return new TokenizedFile(buffer);
+        }
+    }
+
+    /**
+     * Tokenizes bytes that are already in memory.
+     *
+     * @param buffer the bytes, from position zero to the limit.
+     * @return the tokenized bytes.
+     */
+    public static TokenizedFile of(ByteBuffer buffer) {
+        return new TokenizedFile(buffer);
+    }
+
+    private void tokenize() {
+        int limit = buffer.limit();
+        int i = 0;
+        boolean lineHasFields = false;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                lineHasFields = false;
+                i++;
+            } else if (isBlank(b)) {
+                i++;
+            } else {
+                if (!lineHasFields) {
+                    addLine();
+                    lineHasFields = true;
+                }
+                int start = i;
+                while (i < limit && !isSeparator(buffer.get(i))) i++;
+                addField(start, i);
+            }
+        }
+        lineStarts = Arrays.copyOf(lineStarts, lines + 1);
+        lineStarts[lines] = fields;
+    }
+
+    /**
+     * Every control byte other than the line feed, such as a tab or the NUL padding of a preallocated file,
+     * separates fields like a space.
+     */
+    private static boolean isBlank(byte b) {
+        return b != '\n' && (b & 0xFF) <= ' ';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    private void addLine() {
+        if (lines == lineStarts.length)
+            lineStarts = Arrays.copyOf(lineStarts, 2 * lines);
+        lineStarts[lines++] = fields;
+    }
+
+    private void addField(int start, int end) {
+        if (2 * fields == fieldBounds.length)
+            fieldBounds = Arrays.copyOf(fieldBounds, 2 * fieldBounds.length);
+        fieldBounds[2 * fields] = start;
+        fieldBounds[2 * fields + 1] = end;
+        fields++;
+    }
+
+    /**
+     * @return the number of bytes that were tokenized.
+     */
+    public int byteCount() {
+        return buffer.limit();
+    }
+
+    /**
+     * @return the number of fields in the whole file.
+     */
+    public int tokenCount() {
+        return fields;
+    }
+
+    public int lineCount() {
+        return lines;
+    }
+
+    public int fieldCount(int line) {
+        return lineStarts[line + 1] - lineStarts[line];
+    }
+
+    private int fieldIndex(int line, int field) {
+        if (field < 0 || field >= fieldCount(line))
+            throw new IndexOutOfBoundsException("Line " + line + " has no field " + field);
+        return lineStarts[line] + field;
+    }
+
+    /**
+     * Parses a field as a double precision value, without creating a String.
+     *
+     * @param line  the index of the (non-blank) line.
+     * @param field the index of the field in the line.
+     * @return the value of the field.
+     */
+    public double doubleAt(int line, int field) {
+        int index = fieldIndex(line, field);
+        return FastDoubleParser.parse(buffer, fieldBounds[2 * index], fieldBounds[2 * index + 1]);
+    }
+
+    /**
+     * Parses a field as an integer, without creating a String.
+     *
+     * @param line  the index of the (non-blank) line.
+     * @param field the index of the field in the line.
+     * @return the value of the field.
+     */
+    public int intAt(int line, int field) {
+        int index = fieldIndex(line, field);
+        int start = fieldBounds[2 * index];
+        int end = fieldBounds[2 * index + 1];
+        boolean negative = buffer.get(start) == '-';
+        int i = negative || buffer.get(start) == '+' ? start + 1 : start;
+        if (i == end || end - i > 9)
+            return Integer.parseInt(textAt(line, field));
+        int value = 0;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9')
+                throw new NumberFormatException("For input string: \"" + textAt(line, field) + "\"");
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @param line  the index of the (non-blank) line.
+     * @param field the index of the field in the line.
+     * @return the field as a String.
+     */
+    public String textAt(int line, int field) {
+        int index = fieldIndex(line, field);
+        int start = fieldBounds[2 * index];
+        byte[] bytes = new byte[fieldBounds[2 * index + 1] - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies a numeric column into a primitive array.
+     *
+     * @param field the index of the field in each line.
+     * @return the value of that field for every line.
+     */
+    public double[] doubleColumn(int field) {
+        double[] column = new double[lines];
+        for (int line = 0; line < lines; line++)
+            column[line] = doubleAt(line, field);
+        return column;
+    }
+
+    /**
+     * @return the same double array of strings as {@link BasicParser#initialParsing(String)}.
+     */
+    public String[][] toStringArrays() {
+        String[][] parsing = new String[lines][];
+        for (int line = 0; line < lines; line++) {
+            parsing[line] = new String[fieldCount(line)];
+            for (int field = 0; field < parsing[line].length; field++)
+                parsing[line][field] = textAt(line, field);
+        }
+        return parsing;
+    }
+
+}
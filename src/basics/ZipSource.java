@@ -0,0 +1,82 @@
+package basics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The resource tree inside a ZIP file. Entries are found through the central directory, so each file is
+ * inflated only when it is read, in any order. The tree may sit under a top directory of the archive, such
+ * as <em>res/</em>: it is found by looking for the input file of the report.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class ZipSource implements InputSource {
+
+    static final String marker = "io/current_entry.txt";
+
+    private final String archive;
+    private final ZipFile zip;
+    private final String prefix;
+
+    public ZipSource(String archive) throws IOException {
+        this.archive = archive;
+        zip = new ZipFile(archive);
+        String found = "";
+        for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+            String name = entries.nextElement().getName();
+            if (name.endsWith(marker) && (name.length() == marker.length()
+                    || name.charAt(name.length() - marker.length() - 1) == '/')) {
+                found = name.substring(0, name.length() - marker.length());
+                break;
+            }
+        }
+        prefix = found;
+    }
+
+    static boolean accepts(String root) {
+        return root.endsWith(".zip");
+    }
+
+    @Override
+    public ByteBuffer read(String relativePath) throws IOException {
+        ZipEntry entry = zip.getEntry(prefix + relativePath);
+        if (entry == null || entry.isDirectory())
+            throw new NoSuchFileException(archive + "!/" + prefix + relativePath);
+        long size = entry.getSize();
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Entry too big to be read: " + entry.getName());
+        try (InputStream in = zip.getInputStream(entry)) {
+            return ByteBuffer.wrap(TarGzSource.readFully(in, size));
+        }
+    }
+
+    @Override
+    public long lastModified(String relativePath) {
+        ZipEntry entry = zip.getEntry(prefix + relativePath);
+        return entry == null ? 0L : entry.getTime();
+    }
+
+    @Override
+    public long size(String relativePath) {
+        ZipEntry entry = zip.getEntry(prefix + relativePath);
+        return entry == null || entry.isDirectory() ? 0L : Math.max(entry.getSize(), 0L);
+    }
+
+    @Override
+    public boolean exists(String relativePath) {
+        ZipEntry entry = zip.getEntry(prefix + relativePath);
+        return entry != null && !entry.isDirectory();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+}
@@ -0,0 +1,48 @@
+package bounds;
+
+/**
+ * A bond between two atoms of a periodic structure. The second atom may be a periodic image, shifted by a
+ * whole number of lattice vectors.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Bond {
+
+    private final int first;
+    private final int second;
+    private final int[] image;
+    private final double length;
+
+    Bond(int first, int second, int[] image, double length) {
+        this.first = first;
+        this.second = second;
+        this.image = image;
+        this.length = length;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    /**
+     * @return how many times each lattice vector shifts the second atom.
+     */
+    public int[] getImage() {
+        return image.clone();
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + second + " (" + image[0] + ", " + image[1] + ", " + image[2] + "): " + length;
+    }
+
+}
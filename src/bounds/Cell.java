@@ -1,23 +1,29 @@
 package bounds;
 
 import basics.BasicParser;
+import basics.TokenizedFile;
+import metrics.Metrics;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Finds the length of each bound in a VASP cell.
+ * Finds the length of each bound in a VASP cell. Its geometry is only worked out the first time a
+ * coordinate or a distance is asked for.
  *
  * @author Cassio dos Santos Sousa
  * @version 1.0
  */
 public class Cell {
 
-    private static final String pathBeginning = "res/poscar/POSCAR";
-    private static final double tolerance = 0.8;
-    private String code;
-    private int numberOfH;
-    private static final int numberOfC = 4;
+    static final String pathBeginning = "poscar/POSCAR";
+    static final double tolerance = 0.8;
+    private final String code;
+    private final String sites;
+    private final PoscarFile poscar;
+    private int numberOfH = -1;
+    private boolean built;
+    static final int numberOfC = 4;
     private double latticeParameter;
     private double[][] latticeVectors;
     private double[][] directCoordinates;
@@ -26,12 +32,51 @@ public class Cell {
     private List<Double> relevantDistances;
 
     public Cell(String code) {
-        this.code = code;
-        String[][] parsedPOSCAR = BasicParser.initialParsing(pathBeginning + code);
-        setCell(parsedPOSCAR);
+        this(code, PoscarFile.forCell(code));
     }
 
-    private void setCell(String[][] parsedPOSCAR) {
+    /**
+     * @param code   the cell code.
+     * @param poscar the POSCAR of the cell, which may also be echoed by the caller.
+     * @throws IllegalArgumentException if the code is malformed.
+     */
+    public Cell(String code, PoscarFile poscar) {
+        this.code = code;
+        this.sites = sitesOf(code);
+        this.poscar = poscar;
+    }
+
+    /**
+     * A cell code has one digit per carbon, zero for a carbon without hydrogen. It may be followed by a dash
+     * and a label, which only tells copies of the same cell apart in file names (such as <em>1122-bq</em>).
+     *
+     * @param code the cell code.
+     * @return the digits of the code.
+     * @throws IllegalArgumentException if the code is malformed.
+     */
+    static String sitesOf(String code) {
+        boolean valid = code.length() == numberOfC
+                || code.length() > numberOfC + 1 && code.charAt(numberOfC) == '-';
+        for (int i = 0; i < numberOfC && valid; i++)
+            valid = Character.isDigit(code.charAt(i));
+        if (!valid)
+            throw new IllegalArgumentException("Invalid cell code: " + code);
+        return code.substring(0, numberOfC);
+    }
+
+    /**
+     * @param code the cell code.
+     * @return the path of the POSCAR of the cell.
+     */
+    public static String filePathFor(String code) {
+        return BasicParser.resourcePath(pathBeginning + code);
+    }
+
+    private synchronized void build() {
+        if (built)
+            return;
+        long start = Metrics.start();
+        TokenizedFile parsedPOSCAR = poscar.tokens();
         setLatticeParameter(parsedPOSCAR);
         setLatticeVectors(parsedPOSCAR);
         setNumberOfH(parsedPOSCAR);
@@ -40,33 +85,35 @@ public class Cell {
         adjustBiggerVectors();
         setTwoRelevantAtoms();
         calculateDistances();
+        built = true;
+        Metrics.stop(Metrics.Stage.GEOMETRY, start);
     }
 
-    private void setLatticeParameter(String[][] parsedPOSCAR) {
-        latticeParameter = Double.valueOf(parsedPOSCAR[1][0]);
+    private void setLatticeParameter(TokenizedFile parsedPOSCAR) {
+        latticeParameter = parsedPOSCAR.doubleAt(1, 0);
     }
 
-    private void setLatticeVectors(String[][] parsedPOSCAR) {
+    private void setLatticeVectors(TokenizedFile parsedPOSCAR) {
         latticeVectors = new double[3][3];
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                latticeVectors[i][j] = Double.valueOf(parsedPOSCAR[2 + i][j]);
+                latticeVectors[i][j] = parsedPOSCAR.doubleAt(2 + i, j);
             }
         }
     }
 
-    private void setNumberOfH(String[][] parsedPOSCAR) {
-        if (parsedPOSCAR[6].length == 1)
+    private void setNumberOfH(TokenizedFile parsedPOSCAR) {
+        if (parsedPOSCAR.fieldCount(6) == 1)
             numberOfH = 0;
         else
-            numberOfH = Integer.valueOf(parsedPOSCAR[6][1]);
+            numberOfH = parsedPOSCAR.intAt(6, 1);
     }
 
-    private void setDirectCoordinates(String[][] parsedPOSCAR) {
+    private void setDirectCoordinates(TokenizedFile parsedPOSCAR) {
         directCoordinates = new double[numberOfC + numberOfH][3];
         for (int i = 0; i < numberOfC + numberOfH; i++) {
             for (int j = 0; j < 3; j++)
-                directCoordinates[i][j] = adjusted(Double.valueOf(parsedPOSCAR[9 + i][j]));
+                directCoordinates[i][j] = adjusted(parsedPOSCAR.doubleAt(9 + i, j));
         }
     }
 
@@ -124,8 +171,8 @@ public class Cell {
     private void calculateForHydrogens() {
         int iterator = 0;
         if (numberOfH > 0) {
-            for (int i = 0; i < code.length(); i++) {
-                if (Integer.valueOf(String.valueOf(code.charAt(i))) != 0) {
+            for (int i = 0; i < sites.length(); i++) {
+                if (Integer.valueOf(String.valueOf(sites.charAt(i))) != 0) {
                     addDistance(cartesianCoordinates[i], cartesianCoordinates[numberOfC + iterator]);
                     iterator++;
                 }
@@ -151,15 +198,54 @@ public class Cell {
     }
 
     public List<Double> getRelevantDistances() {
+        build();
         return relevantDistances;
     }
 
-    public int getNumberOfH() {
+    /**
+     * @return the number of hydrogen atoms, read without working out the geometry.
+     */
+    public synchronized int getNumberOfH() {
+        if (numberOfH < 0)
+            setNumberOfH(poscar.tokens());
         return numberOfH;
     }
 
+    public String getCode() {
+        return code;
+    }
+
+    public double getLatticeParameter() {
+        build();
+        return latticeParameter;
+    }
+
+    /**
+     * @return a copy of the (unscaled) lattice vectors, one per row.
+     */
+    public double[][] getLatticeVectors() {
+        build();
+        return copyOf(latticeVectors);
+    }
+
+    /**
+     * @return a copy of the Cartesian coordinates (in angstroms) of each atom, carbons first.
+     */
+    public double[][] getCartesianCoordinates() {
+        build();
+        return copyOf(cartesianCoordinates);
+    }
+
+    private static double[][] copyOf(double[][] matrix) {
+        double[][] copy = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++)
+            copy[i] = matrix[i].clone();
+        return copy;
+    }
+
     public static void main(String[] args) {
         Cell graphene = new Cell("1122");
+        graphene.build();
         graphene.printDistances();
     }
 
@@ -0,0 +1,245 @@
+package bounds;
+
+import basics.BasicParser;
+import basics.TokenizedFile;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Finds the length of each bound for many VASP cells at once. Coordinates of every atom of every cell are
+ * kept in flat structure-of-arrays buffers, and each step of {@link Cell} runs as one tight loop over the
+ * whole batch instead of one small object graph per cell.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class CellBatch {
+
+    private final String[] codes;
+    private final String[] sites;
+    private final int[] numberOfH;
+    private final int[] atomOffsets;
+    private final int[] distanceOffsets;
+    private final double[] latticeParameters;
+    private final double[] latticeVectors;
+    private final double[] x, y, z;
+    private final double[] distances;
+
+    /**
+     * Loads and analyzes the POSCAR of each cell.
+     *
+     * @param cellCodes the cell codes.
+     * @throws IllegalArgumentException if a code is malformed.
+     */
+    public CellBatch(List<String> cellCodes) {
+        int cells = cellCodes.size();
+        codes = cellCodes.toArray(new String[cells]);
+        sites = new String[cells];
+        for (int cell = 0; cell < cells; cell++)
+            sites[cell] = Cell.sitesOf(codes[cell]);
+        numberOfH = new int[cells];
+        atomOffsets = new int[cells + 1];
+        distanceOffsets = new int[cells + 1];
+        latticeParameters = new double[cells];
+        latticeVectors = new double[9 * cells];
+        TokenizedFile[] parsedPOSCARs = new TokenizedFile[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            parsedPOSCARs[cell] = BasicParser.tokenizedFile(Cell.filePathFor(codes[cell]));
+            numberOfH[cell] = parsedPOSCARs[cell].fieldCount(6) == 1 ? 0 : parsedPOSCARs[cell].intAt(6, 1);
+            atomOffsets[cell + 1] = atomOffsets[cell] + Cell.numberOfC + numberOfH[cell];
+            distanceOffsets[cell + 1] = distanceOffsets[cell] + Cell.numberOfC + numberOfH[cell];
+        }
+        int atoms = atomOffsets[cells];
+        x = new double[atoms];
+        y = new double[atoms];
+        z = new double[atoms];
+        distances = new double[distanceOffsets[cells]];
+        for (int cell = 0; cell < cells; cell++) {
+            load(cell, parsedPOSCARs[cell]);
+            parsedPOSCARs[cell] = null;
+        }
+        setCartesianCoordinates();
+        adjustBiggerVectors();
+        calculateDistances();
+    }
+
+    private void load(int cell, TokenizedFile parsedPOSCAR) {
+        latticeParameters[cell] = parsedPOSCAR.doubleAt(1, 0);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                latticeVectors[9 * cell + 3 * i + j] = parsedPOSCAR.doubleAt(2 + i, j);
+        for (int atom = atomOffsets[cell], line = 9; atom < atomOffsets[cell + 1]; atom++, line++) {
+            x[atom] = adjusted(parsedPOSCAR.doubleAt(line, 0));
+            y[atom] = adjusted(parsedPOSCAR.doubleAt(line, 1));
+            z[atom] = adjusted(parsedPOSCAR.doubleAt(line, 2));
+        }
+    }
+
+    private static double adjusted(double direct) {
+        return direct > Cell.tolerance ? direct - 1.0 : direct;
+    }
+
+    /**
+     * Turns the direct coordinates of the whole batch into (unscaled) Cartesian coordinates, in place.
+     */
+    private void setCartesianCoordinates() {
+        for (int cell = 0; cell < codes.length; cell++) {
+            int v = 9 * cell;
+            double a00 = latticeVectors[v], a01 = latticeVectors[v + 1], a02 = latticeVectors[v + 2];
+            double a10 = latticeVectors[v + 3], a11 = latticeVectors[v + 4], a12 = latticeVectors[v + 5];
+            double a20 = latticeVectors[v + 6], a21 = latticeVectors[v + 7], a22 = latticeVectors[v + 8];
+            for (int atom = atomOffsets[cell]; atom < atomOffsets[cell + 1]; atom++) {
+                double d0 = x[atom], d1 = y[atom], d2 = z[atom];
+                x[atom] = a00 * d0 + a10 * d1 + a20 * d2;
+                y[atom] = a01 * d0 + a11 * d1 + a21 * d2;
+                z[atom] = a02 * d0 + a12 * d1 + a22 * d2;
+            }
+        }
+    }
+
+    /**
+     * Brings back the atoms that fell outside the cell and scales them by the lattice parameter, with the
+     * same order of operations as {@link Cell}, so that both give the very same lengths.
+     */
+    private void adjustBiggerVectors() {
+        for (int cell = 0; cell < codes.length; cell++) {
+            int v = 9 * cell;
+            double a00 = latticeVectors[v], a01 = latticeVectors[v + 1], a02 = latticeVectors[v + 2];
+            double a10 = latticeVectors[v + 3], a11 = latticeVectors[v + 4], a12 = latticeVectors[v + 5];
+            double a20 = latticeVectors[v + 6], a21 = latticeVectors[v + 7], a22 = latticeVectors[v + 8];
+            double parameter = latticeParameters[cell];
+            for (int atom = atomOffsets[cell]; atom < atomOffsets[cell + 1]; atom++) {
+                double cx = x[atom], cy = y[atom], cz = z[atom];
+                if (cx > Cell.tolerance * a00) {
+                    cx -= a00;
+                    cy -= a01;
+                    cz -= a02;
+                }
+                cx *= parameter;
+                if (cy > Cell.tolerance * a11) {
+                    cx -= a10;
+                    cy -= a11;
+                    cz -= a12;
+                }
+                cy *= parameter;
+                if (cz > Cell.tolerance * a22) {
+                    cx -= a20;
+                    cy -= a21;
+                    cz -= a22;
+                }
+                cz *= parameter;
+                x[atom] = cx;
+                y[atom] = cy;
+                z[atom] = cz;
+            }
+        }
+    }
+
+    private void calculateDistances() {
+        for (int cell = 0; cell < codes.length; cell++) {
+            calculateForCarbons(cell);
+            calculateForHydrogens(cell);
+        }
+    }
+
+    private void calculateForCarbons(int cell) {
+        int v = 9 * cell;
+        int first = atomOffsets[cell];
+        int out = distanceOffsets[cell];
+        double parameter = latticeParameters[cell];
+        double shiftX = parameter * (latticeVectors[v + 3] - latticeVectors[v]);
+        double shiftY = parameter * (latticeVectors[v + 4]);
+        double imageX = parameter * (latticeVectors[v + 3]);
+        distances[out] = distance(first, first + 3);
+        distances[out + 1] = distance(first + 1, first + 2);
+        distances[out + 2] = distance(x[first], y[first], z[first],
+                x[first + 2] + shiftX, y[first + 2] + shiftY, z[first + 2]);
+        distances[out + 3] = distance(x[first + 1], y[first + 1], z[first + 1],
+                x[first + 3] + imageX, y[first + 3] + shiftY, z[first + 3]);
+    }
+
+    private void calculateForHydrogens(int cell) {
+        String sites = this.sites[cell];
+        int first = atomOffsets[cell];
+        int out = distanceOffsets[cell] + Cell.numberOfC;
+        int iterator = 0;
+        if (numberOfH[cell] > 0) {
+            for (int i = 0; i < sites.length(); i++) {
+                if (sites.charAt(i) != '0') {
+                    distances[out + iterator] = distance(first + i, first + Cell.numberOfC + iterator);
+                    iterator++;
+                }
+            }
+        }
+    }
+
+    private double distance(int atom1, int atom2) {
+        return distance(x[atom1], y[atom1], z[atom1], x[atom2], y[atom2], z[atom2]);
+    }
+
+    private static double distance(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double result = 0.0;
+        result += (x1 - x2) * (x1 - x2);
+        result += (y1 - y2) * (y1 - y2);
+        result += (z1 - z2) * (z1 - z2);
+        return Math.sqrt(result);
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public String getCode(int cell) {
+        return codes[cell];
+    }
+
+    public int getNumberOfH(int cell) {
+        return numberOfH[cell];
+    }
+
+    /**
+     * @param cell the index of the cell in the batch.
+     * @param bond the index of the bond, as in {@link Cell#getRelevantDistances()}.
+     * @return the length of the bond.
+     */
+    public double distanceAt(int cell, int bond) {
+        if (bond < 0 || bond >= distanceOffsets[cell + 1] - distanceOffsets[cell])
+            throw new IndexOutOfBoundsException("Cell " + codes[cell] + " has no bond " + bond);
+        return distances[distanceOffsets[cell] + bond];
+    }
+
+    /**
+     * Read-only view of the bond lengths of one cell, in the same order as {@link Cell#getRelevantDistances()}:
+     * the four C-C bonds first, then one C-H bond for each hydrogen.
+     *
+     * @param cell the index of the cell in the batch.
+     * @return the bond lengths of the cell.
+     */
+    public List<Double> getRelevantDistances(int cell) {
+        return new DistanceView(distanceOffsets[cell], distanceOffsets[cell + 1]);
+    }
+
+    private final class DistanceView extends AbstractList<Double> implements RandomAccess {
+        private final int from, to;
+
+        private DistanceView(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= to - from)
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            return distances[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package bounds;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Description of a structure that does not change when it is translated, rotated, mirrored or when its atoms
+ * are listed in another order: the number of atoms of each species, the sorted lengths of the lattice vectors
+ * with the volume of the cell, and the sorted shortest distance between every pair of atoms, grouped by the
+ * species of the pair. Two fingerprints match when all their numbers agree within a tolerance.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Fingerprint {
+
+    private final String composition;
+    private final double[] lattice;
+    private final double[] distances;
+
+    private Fingerprint(String composition, double[] lattice, double[] distances) {
+        this.composition = composition;
+        this.lattice = lattice;
+        this.distances = distances;
+    }
+
+    /**
+     * @param structure the structure.
+     * @return the fingerprint of the structure.
+     */
+    public static Fingerprint of(Structure structure) {
+        int atoms = structure.getNumberOfAtoms();
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int atom = 0; atom < atoms; atom++)
+            counts.merge(structure.speciesOf(atom), 1, Integer::sum);
+        double[][] vectors = structure.getLatticeVectors();
+        double[] lattice = new double[4];
+        for (int i = 0; i < 3; i++)
+            lattice[i] = Math.sqrt(Structure.dot(vectors[i], vectors[i]));
+        Arrays.sort(lattice, 0, 3);
+        lattice[3] = Math.abs(Structure.dot(vectors[0], Structure.cross(vectors[1], vectors[2])));
+        Map<String, double[]> byPair = new TreeMap<>();
+        Map<String, Integer> filled = new TreeMap<>();
+        for (int first = 0; first < atoms; first++)
+            for (int second = first + 1; second < atoms; second++) {
+                String one = structure.speciesOf(first), other = structure.speciesOf(second);
+                String pair = one.compareTo(other) <= 0 ? one + "-" + other : other + "-" + one;
+                double[] group = byPair.computeIfAbsent(pair, key -> new double[pairCount(key, counts)]);
+                int index = filled.merge(pair, 1, Integer::sum) - 1;
+                group[index] = shortestDistance(structure, vectors, first, second);
+            }
+        StringBuilder composition = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : counts.entrySet())
+            composition.append(entry.getKey()).append(entry.getValue());
+        int total = 0;
+        for (double[] group : byPair.values()) {
+            Arrays.sort(group);
+            total += group.length;
+        }
+        double[] distances = new double[total];
+        int offset = 0;
+        for (double[] group : byPair.values()) {
+            System.arraycopy(group, 0, distances, offset, group.length);
+            offset += group.length;
+        }
+        return new Fingerprint(composition.toString(), lattice, distances);
+    }
+
+    private static int pairCount(String pair, Map<String, Integer> counts) {
+        String[] species = pair.split("-");
+        int one = counts.get(species[0]);
+        return species[0].equals(species[1]) ? one * (one - 1) / 2 : one * counts.get(species[1]);
+    }
+
+    /**
+     * The shortest distance between two atoms or any of their periodic images. The difference of their
+     * fractional coordinates is first brought into [-1/2, 1/2), so the result does not depend on which
+     * image of each atom the POSCAR lists.
+     */
+    private static double shortestDistance(Structure structure, double[][] vectors, int first, int second) {
+        double[] one = structure.fractionalCoordinatesOf(first), other = structure.fractionalCoordinatesOf(second);
+        double[] difference = new double[3];
+        for (int k = 0; k < 3; k++)
+            difference[k] = other[k] - one[k] - Math.floor(other[k] - one[k] + 0.5);
+        double shortest = Double.POSITIVE_INFINITY;
+        double[] shifted = new double[3];
+        for (int i = -1; i <= 1; i++)
+            for (int j = -1; j <= 1; j++)
+                for (int k = -1; k <= 1; k++) {
+                    shifted[0] = difference[0] + i;
+                    shifted[1] = difference[1] + j;
+                    shifted[2] = difference[2] + k;
+                    double[] cartesian = Structure.multiply(shifted, vectors);
+                    shortest = Math.min(shortest, Structure.dot(cartesian, cartesian));
+                }
+        return Math.sqrt(shortest);
+    }
+
+    /**
+     * @return a single number that differs by at most the tolerance between two matching fingerprints: the
+     * mean of every pair distance.
+     */
+    double summary() {
+        double sum = 0.0;
+        for (double distance : distances)
+            sum += distance;
+        return distances.length == 0 ? lattice[3] : sum / distances.length;
+    }
+
+    String getComposition() {
+        return composition;
+    }
+
+    /**
+     * @param other     another fingerprint.
+     * @param tolerance the largest difference allowed between two lengths (in angstroms), and between the
+     *                  two volumes (in cubic angstroms).
+     * @return <em>true</em> if both fingerprints describe the same structure.
+     */
+    public boolean matches(Fingerprint other, double tolerance) {
+        if (!composition.equals(other.composition) || distances.length != other.distances.length)
+            return false;
+        for (int i = 0; i < lattice.length; i++)
+            if (Math.abs(lattice[i] - other.lattice[i]) > tolerance)
+                return false;
+        for (int i = 0; i < distances.length; i++)
+            if (Math.abs(distances[i] - other.distances[i]) > tolerance)
+                return false;
+        return true;
+    }
+
+}
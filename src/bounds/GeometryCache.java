@@ -0,0 +1,139 @@
+package bounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bond lengths of the structures analyzed so far, found by their {@link Fingerprint}. A cell whose structure
+ * matches one already in the cache is not analyzed again: it gets the bond lengths of the first cell with
+ * that structure, and is told which cell that was.
+ * <p>
+ * Which cell comes first is the order of the calls to {@link #get(String, PoscarFile)}: asking for the cells in
+ * input order, even if they are then analyzed concurrently, makes the earliest cell of each structure its
+ * canonical one.
+ * <p>
+ * Fingerprints are binned by composition and by the mean of their pair distances, in bins as wide as the
+ * tolerance; two matching fingerprints always fall in the same or in neighbouring bins, so only three bins
+ * are searched for each lookup. The bond lengths of a structure are only worked out when first asked for,
+ * outside of any bin, and the POSCAR of its canonical cell is dropped as soon as they are: past that, an
+ * entry only keeps the fingerprint and the bond lengths.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class GeometryCache {
+
+    /**
+     * The geometry of a cell, possibly borrowed from an equivalent one.
+     */
+    public static final class Entry {
+
+        private final String code;
+        private final Fingerprint fingerprint;
+        private PoscarFile poscar;
+        private List<Double> relevantDistances;
+        private int numberOfH;
+
+        private Entry(String code, Fingerprint fingerprint, PoscarFile poscar) {
+            this.code = code;
+            this.fingerprint = fingerprint;
+            this.poscar = poscar;
+        }
+
+        /**
+         * @return the code of the first cell that was registered with this structure.
+         */
+        public String getCode() {
+            return code;
+        }
+
+        private synchronized void build() {
+            if (poscar != null) {
+                Cell cell = new Cell(code, poscar);
+                relevantDistances = cell.getRelevantDistances();
+                numberOfH = cell.getNumberOfH();
+                poscar = null;
+            }
+        }
+
+        public List<Double> getRelevantDistances() {
+            build();
+            return relevantDistances;
+        }
+
+        public int getNumberOfH() {
+            build();
+            return numberOfH;
+        }
+
+    }
+
+    private final double tolerance;
+    private final ConcurrentHashMap<String, List<Entry>> bins = new ConcurrentHashMap<>();
+
+    /**
+     * @param tolerance the largest difference between two lengths of matching structures (in angstroms).
+     */
+    public GeometryCache(double tolerance) {
+        if (!(tolerance > 0.0))
+            throw new IllegalArgumentException("The tolerance must be positive: " + tolerance);
+        this.tolerance = tolerance;
+    }
+
+    public GeometryCache() {
+        this(1e-3);
+    }
+
+    private String binOf(Fingerprint fingerprint, long offset) {
+        return fingerprint.getComposition() + "/" + ((long) Math.floor(fingerprint.summary() / tolerance) + offset);
+    }
+
+    /**
+     * Fingerprints a cell and finds which cell it is a duplicate of, if any. The cell itself is only analyzed
+     * when the bond lengths of its entry are first asked for, and only if it is not a duplicate.
+     *
+     * @param code   the cell code.
+     * @param poscar the POSCAR of the cell.
+     * @return the geometry of the cell, whose code is another one if the cell is a duplicate.
+     */
+    public Entry get(String code, PoscarFile poscar) {
+        Fingerprint fingerprint = Fingerprint.of(new Structure(poscar.tokens()));
+        Entry entry = null;
+        for (long offset = -1; offset <= 1 && entry == null; offset++)
+            entry = find(bins.get(binOf(fingerprint, offset)), fingerprint);
+        if (entry == null) {
+            Entry[] result = new Entry[1];
+            bins.compute(binOf(fingerprint, 0), (bin, entries) -> {
+                result[0] = find(entries, fingerprint);
+                if (result[0] != null)
+                    return entries;
+                result[0] = new Entry(code, fingerprint, poscar);
+                List<Entry> updated = entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+                updated.add(result[0]);
+                return updated;
+            });
+            entry = result[0];
+        }
+        return entry;
+    }
+
+    private Entry find(List<Entry> entries, Fingerprint fingerprint) {
+        if (entries != null)
+            for (Entry entry : entries)
+                if (entry.fingerprint.matches(fingerprint, tolerance))
+                    return entry;
+        return null;
+    }
+
+    /**
+     * @return the number of distinct structures in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (List<Entry> entries : bins.values())
+            size += entries.size();
+        return size;
+    }
+
+}
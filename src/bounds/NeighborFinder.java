@@ -0,0 +1,171 @@
+package bounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the bonds of a periodic structure of any size. Atoms are sorted into bins (cell lists) at least as
+ * wide as the longest possible bond, so that each atom is only compared with the atoms of its neighboring
+ * bins, and the search runs in O(N). Two atoms are bonded when they are closer than the sum of their
+ * covalent radii, times a tolerance.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class NeighborFinder {
+
+    private static final double defaultTolerance = 1.2;
+    private static final Map<String, Double> covalentRadii = new HashMap<>();
+
+    static {
+        covalentRadii.put("H", 0.31);
+        covalentRadii.put("B", 0.84);
+        covalentRadii.put("C", 0.76);
+        covalentRadii.put("N", 0.71);
+        covalentRadii.put("O", 0.66);
+        covalentRadii.put("F", 0.57);
+        covalentRadii.put("Si", 1.11);
+    }
+
+    private final Structure structure;
+    private final double tolerance;
+
+    public NeighborFinder(Structure structure) {
+        this(structure, defaultTolerance);
+    }
+
+    /**
+     * @param structure the structure.
+     * @param tolerance how much longer than the sum of covalent radii a bond may be.
+     */
+    public NeighborFinder(Structure structure, double tolerance) {
+        this.structure = structure;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @param species a species name.
+     * @return the covalent radius of the species (in angstroms).
+     */
+    public static double covalentRadius(String species) {
+        Double radius = covalentRadii.get(species);
+        if (radius == null)
+            throw new IllegalArgumentException("Unknown covalent radius for " + species);
+        return radius;
+    }
+
+    private double cutoff(int atom1, int atom2) {
+        return tolerance * (covalentRadius(structure.speciesOf(atom1)) + covalentRadius(structure.speciesOf(atom2)));
+    }
+
+    /**
+     * Finds every bond of the structure once. In small cells, an atom may be bonded to several periodic
+     * images of the same atom, and each of those bonds is found.
+     *
+     * @return the bonds, sorted by first atom and then by second atom.
+     */
+    public List<Bond> bonds() {
+        int atoms = structure.getNumberOfAtoms();
+        double maxCutoff = 0.0;
+        for (String species : structure.getSpecies())
+            maxCutoff = Math.max(maxCutoff, 2.0 * tolerance * covalentRadius(species));
+        double[][] lattice = structure.getLatticeVectors();
+        double volume = Math.abs(Structure.dot(lattice[0], Structure.cross(lattice[1], lattice[2])));
+        int[] bins = new int[3];
+        int[] reach = new int[3];
+        for (int i = 0; i < 3; i++) {
+            double width = volume / norm(Structure.cross(lattice[(i + 1) % 3], lattice[(i + 2) % 3]));
+            bins[i] = Math.max(1, (int) Math.floor(width / maxCutoff));
+            reach[i] = (int) Math.ceil(maxCutoff * bins[i] / width);
+        }
+        double[][] positions = new double[atoms][];
+        for (int atom = 0; atom < atoms; atom++)
+            positions[atom] = structure.cartesianCoordinatesOf(atom);
+        int[] head = new int[bins[0] * bins[1] * bins[2]];
+        int[] next = new int[atoms];
+        int[][] binOf = new int[atoms][3];
+        Arrays.fill(head, -1);
+        for (int atom = atoms - 1; atom >= 0; atom--) {
+            double[] fractional = structure.fractionalCoordinatesOf(atom);
+            for (int i = 0; i < 3; i++)
+                binOf[atom][i] = Math.min(bins[i] - 1, (int) (fractional[i] * bins[i]));
+            int bin = index(binOf[atom], bins);
+            next[atom] = head[bin];
+            head[bin] = atom;
+        }
+        List<Bond> bonds = new ArrayList<>();
+        int[] neighborBin = new int[3];
+        int[] image = new int[3];
+        for (int atom = 0; atom < atoms; atom++) {
+            double[] position = positions[atom];
+            for (int d0 = -reach[0]; d0 <= reach[0]; d0++)
+                for (int d1 = -reach[1]; d1 <= reach[1]; d1++)
+                    for (int d2 = -reach[2]; d2 <= reach[2]; d2++) {
+                        int[] offset = {d0, d1, d2};
+                        for (int i = 0; i < 3; i++) {
+                            int shifted = binOf[atom][i] + offset[i];
+                            image[i] = Math.floorDiv(shifted, bins[i]);
+                            neighborBin[i] = Math.floorMod(shifted, bins[i]);
+                        }
+                        double[] shift = Structure.multiply(new double[]{image[0], image[1], image[2]}, lattice);
+                        for (int other = head[index(neighborBin, bins)]; other >= 0; other = next[other]) {
+                            if (other < atom || (other == atom && !isPositive(image)))
+                                continue;
+                            double[] otherPosition = positions[other];
+                            double squared = 0.0;
+                            for (int i = 0; i < 3; i++) {
+                                double delta = otherPosition[i] + shift[i] - position[i];
+                                squared += delta * delta;
+                            }
+                            double cutoff = cutoff(atom, other);
+                            if (squared <= cutoff * cutoff)
+                                bonds.add(new Bond(atom, other, image.clone(), Math.sqrt(squared)));
+                        }
+                    }
+        }
+        bonds.sort((b1, b2) -> b1.getFirst() != b2.getFirst() ? Integer.compare(b1.getFirst(), b2.getFirst())
+                : Integer.compare(b1.getSecond(), b2.getSecond()));
+        return bonds;
+    }
+
+    /**
+     * @param species1 a species name.
+     * @param species2 another species name.
+     * @return the lengths of the bonds between atoms of those two species.
+     */
+    public List<Double> bondLengths(String species1, String species2) {
+        List<Double> lengths = new ArrayList<>();
+        for (Bond bond : bonds()) {
+            String first = structure.speciesOf(bond.getFirst());
+            String second = structure.speciesOf(bond.getSecond());
+            if ((first.equals(species1) && second.equals(species2)) || (first.equals(species2) && second.equals(species1)))
+                lengths.add(bond.getLength());
+        }
+        return lengths;
+    }
+
+    private static boolean isPositive(int[] image) {
+        for (int i : image)
+            if (i != 0)
+                return i > 0;
+        return false;
+    }
+
+    private static int index(int[] bin, int[] bins) {
+        return (bin[0] * bins[1] + bin[1]) * bins[2] + bin[2];
+    }
+
+    private static double norm(double[] vector) {
+        return Math.sqrt(Structure.dot(vector, vector));
+    }
+
+    public static void main(String[] args) {
+        NeighborFinder finder = new NeighborFinder(Structure.forCell("1122"));
+        for (Bond bond : finder.bonds())
+            System.out.println(bond);
+    }
+
+}
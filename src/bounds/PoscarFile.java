@@ -0,0 +1,116 @@
+package bounds;
+
+import basics.BasicParser;
+import basics.TokenizedFile;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The bytes of a POSCAR, read once and shared by everything that needs them: the report echoes them as
+ * they are, and {@link Cell} and {@link Structure} read their fields. The file is only tokenized the first
+ * time its fields are asked for.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class PoscarFile {
+
+    private final ByteBuffer bytes;
+    private TokenizedFile tokens;
+
+    private PoscarFile(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * @param path the POSCAR path.
+     * @return the POSCAR, with its bytes already read.
+     * @throws IOException if the file could not be read.
+     */
+    public static PoscarFile of(Path path) throws IOException {
+        long start = Metrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too big to be a POSCAR: " + path);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+            buffer.flip();
+            Metrics.add(Metrics.Counter.BYTES_READ, buffer.limit());
+            return new PoscarFile(buffer);
+        } finally {
+            Metrics.stop(Metrics.Stage.PARSE, start);
+        }
+    }
+
+    /**
+     * @param filePath the POSCAR path, which may point inside an archived resource root.
+     * @return the POSCAR, with its bytes already read.
+     * @throws IOException if the file could not be read.
+     */
+    public static PoscarFile of(String filePath) throws IOException {
+        if (!BasicParser.isArchived(filePath))
+            return of(Paths.get(filePath));
+        long start = Metrics.start();
+        try {
+            ByteBuffer buffer = BasicParser.read(filePath);
+            Metrics.add(Metrics.Counter.BYTES_READ, buffer.limit());
+            return new PoscarFile(buffer);
+        } finally {
+            Metrics.stop(Metrics.Stage.PARSE, start);
+        }
+    }
+
+    public static PoscarFile of(ByteBuffer bytes) {
+        return new PoscarFile(bytes);
+    }
+
+    /**
+     * Reads the POSCAR of a cell. Just like {@link basics.BasicParser#tokenizedFile(String)}, a file that
+     * could not be read is reported and taken as empty.
+     *
+     * @param code the cell code.
+     * @return the POSCAR of the cell.
+     */
+    public static PoscarFile forCell(String code) {
+        try {
+            return of(Cell.filePathFor(code));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new PoscarFile(ByteBuffer.allocate(0));
+        }
+    }
+
+    /**
+     * @return a read-only view of the bytes of the file, positioned at its start.
+     */
+    public ByteBuffer bytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the text of the file, decoded with the default charset.
+     */
+    public String text() {
+        return Charset.defaultCharset().decode(bytes()).toString();
+    }
+
+    /**
+     * @return the fields of the file, tokenized on the first call.
+     */
+    public synchronized TokenizedFile tokens() {
+        if (tokens == null) {
+            tokens = TokenizedFile.of(bytes());
+            Metrics.add(Metrics.Counter.TOKENS_PARSED, tokens.tokenCount());
+        }
+        return tokens;
+    }
+
+}
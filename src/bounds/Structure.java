@@ -0,0 +1,176 @@
+package bounds;
+
+import basics.TokenizedFile;
+
+import java.util.Arrays;
+
+/**
+ * A periodic structure of any size, read from a POSCAR with its species (line 6) and counts (line 7).
+ * Unlike {@link Cell}, it makes no assumption on the number of atoms or on their order.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Structure {
+
+    private final String[] species;
+    private final int[] speciesOf;
+    private final double[][] latticeVectors;
+    private final double[][] fractionalCoordinates;
+    private final double[][] cartesianCoordinates;
+
+    /**
+     * Reads the POSCAR of a cell.
+     *
+     * @param code the cell code.
+     * @return the structure of the cell.
+     */
+    public static Structure forCell(String code) {
+        return new Structure(PoscarFile.forCell(code).tokens());
+    }
+
+    /**
+     * @param parsedPOSCAR a tokenized POSCAR, with the species line.
+     */
+    public Structure(TokenizedFile parsedPOSCAR) {
+        double scale = parsedPOSCAR.doubleAt(1, 0);
+        if (scale <= 0.0)
+            throw new IllegalArgumentException("Only positive scaling factors are supported: " + scale);
+        latticeVectors = new double[3][3];
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                latticeVectors[i][j] = scale * parsedPOSCAR.doubleAt(2 + i, j);
+        int kinds = parsedPOSCAR.fieldCount(5);
+        if (kinds != parsedPOSCAR.fieldCount(6) || Character.isDigit(parsedPOSCAR.textAt(5, 0).charAt(0)))
+            throw new IllegalArgumentException("The POSCAR needs a species line followed by a counts line");
+        String[] names = new String[kinds];
+        int atoms = 0;
+        int[] counts = new int[kinds];
+        for (int kind = 0; kind < kinds; kind++) {
+            names[kind] = parsedPOSCAR.textAt(5, kind);
+            counts[kind] = parsedPOSCAR.intAt(6, kind);
+            atoms += counts[kind];
+        }
+        species = names;
+        speciesOf = new int[atoms];
+        for (int kind = 0, atom = 0; kind < kinds; kind++)
+            for (int n = 0; n < counts[kind]; n++)
+                speciesOf[atom++] = kind;
+        int line = 7;
+        if (startsWith(parsedPOSCAR, line, 'S'))
+            line++;
+        boolean cartesian = startsWith(parsedPOSCAR, line, 'C') || startsWith(parsedPOSCAR, line, 'K');
+        line++;
+        double[][] inverse = inverse(latticeVectors);
+        fractionalCoordinates = new double[atoms][3];
+        cartesianCoordinates = new double[atoms][3];
+        for (int atom = 0; atom < atoms; atom++, line++) {
+            double[] read = new double[3];
+            for (int j = 0; j < 3; j++)
+                read[j] = parsedPOSCAR.doubleAt(line, j);
+            double[] fractional = cartesian ? multiply(scale(read, scale), inverse) : read;
+            for (int j = 0; j < 3; j++)
+                fractionalCoordinates[atom][j] = fractional[j] - Math.floor(fractional[j]);
+            cartesianCoordinates[atom] = multiply(fractionalCoordinates[atom], latticeVectors);
+        }
+    }
+
+    private static boolean startsWith(TokenizedFile parsedPOSCAR, int line, char letter) {
+        return Character.toUpperCase(parsedPOSCAR.textAt(line, 0).charAt(0)) == letter;
+    }
+
+    private static double[] scale(double[] vector, double scale) {
+        return new double[]{scale * vector[0], scale * vector[1], scale * vector[2]};
+    }
+
+    /**
+     * @param row    a row vector.
+     * @param matrix a 3x3 matrix.
+     * @return the product of the row vector by the matrix.
+     */
+    static double[] multiply(double[] row, double[][] matrix) {
+        double[] result = new double[3];
+        for (int j = 0; j < 3; j++)
+            result[j] = row[0] * matrix[0][j] + row[1] * matrix[1][j] + row[2] * matrix[2][j];
+        return result;
+    }
+
+    static double[] cross(double[] u, double[] v) {
+        return new double[]{u[1] * v[2] - u[2] * v[1], u[2] * v[0] - u[0] * v[2], u[0] * v[1] - u[1] * v[0]};
+    }
+
+    static double dot(double[] u, double[] v) {
+        return u[0] * v[0] + u[1] * v[1] + u[2] * v[2];
+    }
+
+    private static double[][] inverse(double[][] m) {
+        double[] c0 = cross(m[1], m[2]);
+        double[] c1 = cross(m[2], m[0]);
+        double[] c2 = cross(m[0], m[1]);
+        double determinant = dot(m[0], c0);
+        if (determinant == 0.0)
+            throw new IllegalArgumentException("The lattice vectors are not independent");
+        double[][] inverse = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            inverse[i][0] = c0[i] / determinant;
+            inverse[i][1] = c1[i] / determinant;
+            inverse[i][2] = c2[i] / determinant;
+        }
+        return inverse;
+    }
+
+    public int getNumberOfAtoms() {
+        return speciesOf.length;
+    }
+
+    public String[] getSpecies() {
+        return Arrays.copyOf(species, species.length);
+    }
+
+    /**
+     * @param atom the index of the atom, in POSCAR order.
+     * @return the species name of the atom, such as <em>C</em> or <em>H</em>.
+     */
+    public String speciesOf(int atom) {
+        return species[speciesOf[atom]];
+    }
+
+    /**
+     * @param species a species name.
+     * @return how many atoms of that species there are.
+     */
+    public int countOf(String species) {
+        int count = 0;
+        for (int atom = 0; atom < speciesOf.length; atom++)
+            if (speciesOf(atom).equals(species))
+                count++;
+        return count;
+    }
+
+    /**
+     * @return the scaled lattice vectors (in angstroms), one per row.
+     */
+    public double[][] getLatticeVectors() {
+        double[][] copy = new double[3][];
+        for (int i = 0; i < 3; i++)
+            copy[i] = Arrays.copyOf(latticeVectors[i], 3);
+        return copy;
+    }
+
+    /**
+     * @param atom the index of the atom, in POSCAR order.
+     * @return the fractional coordinates of the atom, wrapped into [0, 1).
+     */
+    public double[] fractionalCoordinatesOf(int atom) {
+        return Arrays.copyOf(fractionalCoordinates[atom], 3);
+    }
+
+    /**
+     * @param atom the index of the atom, in POSCAR order.
+     * @return the Cartesian coordinates of the atom (in angstroms), inside the cell.
+     */
+    public double[] cartesianCoordinatesOf(int atom) {
+        return Arrays.copyOf(cartesianCoordinates[atom], 3);
+    }
+
+}
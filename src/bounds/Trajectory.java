@@ -0,0 +1,398 @@
+package bounds;
+
+import basics.FastDoubleParser;
+import basics.TokenizedFile;
+import statistics.WeightedStatistics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Bond lengths along a molecular dynamics trajectory, read from an XDATCAR with a constant cell. The file is
+ * split into blocks of whole frames that are memory-mapped and analyzed in parallel; each block decodes its
+ * frames one at a time into the same off-heap buffer and works out the bonds exactly like {@link Cell}, so
+ * memory does not grow with the length of the trajectory.
+ * <p>
+ * The running statistics of each bond are merged across blocks. The time series, if asked for, is written
+ * as native-order doubles, one row of bond lengths per frame, at the position given by the frame number.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Trajectory {
+
+    static final byte[] frameMark = "Direct configuration=".getBytes(StandardCharsets.US_ASCII);
+    private static final int headerLimit = 1 << 16;
+    private static final long defaultBlockSize = 1 << 26;
+    private static final int seriesBufferSize = 1 << 16;
+
+    private final Path path;
+    private final String code;
+    private final double latticeParameter;
+    private final double[] latticeVectors = new double[9];
+    private final int numberOfH;
+    private final int bonds;
+    private final long firstFrame;
+
+    private Trajectory(Path path, String code, TokenizedFile header, long firstFrame) {
+        this.path = path;
+        this.code = code;
+        this.firstFrame = firstFrame;
+        latticeParameter = header.doubleAt(1, 0);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                latticeVectors[3 * i + j] = header.doubleAt(2 + i, j);
+        numberOfH = header.fieldCount(6) == 1 ? 0 : header.intAt(6, 1);
+        int hydrogenBonds = 0;
+        String sites = Cell.sitesOf(code);
+        for (int i = 0; i < sites.length() && numberOfH > 0; i++)
+            if (sites.charAt(i) != '0')
+                hydrogenBonds++;
+        bonds = Cell.numberOfC + hydrogenBonds;
+    }
+
+    /**
+     * Reads the header of an XDATCAR.
+     *
+     * @param path the XDATCAR path.
+     * @param code the code of the cell, which tells which carbon each hydrogen is bound to.
+     * @return the trajectory.
+     * @throws IOException if the file could not be read or has no frame.
+     * @throws IllegalArgumentException if the code is malformed.
+     */
+    public static Trajectory open(Path path, String code) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate((int) Math.min(headerLimit, channel.size()));
+            while (start.hasRemaining() && channel.read(start) >= 0) ;
+            start.flip();
+            int firstFrame = nextFrame(start, 0);
+            if (firstFrame < 0)
+                throw new IOException("No frame found at the start of " + path);
+            ByteBuffer header = start.duplicate();
+            header.limit(firstFrame);
+            return new Trajectory(path, code, TokenizedFile.of(header.slice()), firstFrame);
+        }
+    }
+
+    /**
+     * @return the position of the first frame line at or after a position, or -1 if there is none.
+     */
+    private static int nextFrame(ByteBuffer buffer, int from) {
+        int limit = buffer.limit() - frameMark.length;
+        for (int i = from; i <= limit; i++) {
+            if (i > 0 && buffer.get(i - 1) != '\n')
+                continue;
+            int k = 0;
+            while (k < frameMark.length && buffer.get(i + k) == frameMark[k])
+                k++;
+            if (k == frameMark.length)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Running statistics of each bond over the frames of a trajectory.
+     */
+    public static final class BondStatistics {
+
+        private long frames;
+        private final WeightedStatistics[] bonds;
+
+        private BondStatistics(int numberOfBonds) {
+            bonds = new WeightedStatistics[numberOfBonds];
+            for (int i = 0; i < numberOfBonds; i++)
+                bonds[i] = new WeightedStatistics();
+        }
+
+        private void accept(double[] lengths) {
+            frames++;
+            for (int i = 0; i < bonds.length; i++)
+                bonds[i].accept(lengths[i], 1.0);
+        }
+
+        private BondStatistics combine(BondStatistics other) {
+            frames += other.frames;
+            for (int i = 0; i < bonds.length; i++)
+                bonds[i].combine(other.bonds[i]);
+            return this;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+
+        public int getNumberOfBonds() {
+            return bonds.length;
+        }
+
+        /**
+         * @param bond the index of the bond, as in {@link Cell#getRelevantDistances()}.
+         * @return the statistics of its length.
+         */
+        public WeightedStatistics of(int bond) {
+            return bonds[bond];
+        }
+
+    }
+
+    public BondStatistics analyze() throws IOException {
+        return analyze(Runtime.getRuntime().availableProcessors(), defaultBlockSize, null);
+    }
+
+    /**
+     * Analyzes every frame of the trajectory.
+     *
+     * @param parallelism the number of blocks analyzed at the same time.
+     * @param blockSize   the nominal size of a block (in bytes), before aligning it to a frame.
+     * @param series      the channel the time series is written to, or null to keep only the statistics.
+     * @return the statistics of each bond.
+     * @throws IOException if the trajectory could not be read or the series could not be written.
+     */
+    public BondStatistics analyze(int parallelism, long blockSize, FileChannel series) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Callable<BondStatistics>> blocks = new ArrayList<>();
+            long[] bounds = blockBounds(channel, blockSize);
+            for (int block = 0; block + 1 < bounds.length; block++) {
+                final long start = bounds[block], end = bounds[block + 1];
+                blocks.add(() -> analyzeBlock(channel, start, end, series));
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                BondStatistics statistics = new BondStatistics(bonds);
+                for (Future<BondStatistics> block : pool.invokeAll(blocks))
+                    statistics.combine(block.get());
+                return statistics;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Analysis of " + path + " was interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Moves every nominal block boundary forward to the start of the next frame.
+     */
+    private long[] blockBounds(FileChannel channel, long blockSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(firstFrame);
+        ByteBuffer window = ByteBuffer.allocate(headerLimit);
+        long boundary = firstFrame + blockSize;
+        while (boundary < size) {
+            long frame = -1;
+            for (long position = boundary - 1; frame < 0 && position < size; position += headerLimit - frameMark.length) {
+                window.clear();
+                channel.read(window, position);
+                window.flip();
+                int found = nextFrame(window, 1);
+                if (found >= 0)
+                    frame = position + found;
+                if (window.limit() < headerLimit)
+                    break;
+            }
+            if (frame < 0)
+                break;
+            bounds.add(frame);
+            boundary = frame + blockSize;
+        }
+        bounds.add(size);
+        long[] array = new long[bounds.size()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = bounds.get(i);
+        return array;
+    }
+
+    private BondStatistics analyzeBlock(FileChannel channel, long start, long end, FileChannel series)
+            throws IOException {
+        MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int atoms = Cell.numberOfC + numberOfH;
+        DoubleBuffer frame = ByteBuffer.allocateDirect(24 * atoms).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        double[] x = new double[atoms], y = new double[atoms], z = new double[atoms];
+        double[] lengths = new double[bonds];
+        ByteBuffer rows = series == null ? null
+                : ByteBuffer.allocateDirect(Math.max(seriesBufferSize / (8 * bonds), 1) * 8 * bonds)
+                .order(ByteOrder.nativeOrder());
+        long firstBufferedFrame = -1;
+        BondStatistics statistics = new BondStatistics(bonds);
+        int[] cursor = {0};
+        int limit = block.limit();
+        while (true) {
+            int line = skipBlankLines(block, cursor[0]);
+            if (line >= limit)
+                break;
+            if (nextFrame(block, line) != line)
+                throw new IOException("Only trajectories with a constant cell are supported: " + path);
+            cursor[0] = line + frameMark.length;
+            long frameNumber = (long) nextNumber(block, cursor);
+            cursor[0] = endOfLine(block, cursor[0]);
+            frame.clear();
+            for (int atom = 0; atom < atoms; atom++) {
+                for (int coord = 0; coord < 3; coord++)
+                    frame.put(nextNumber(block, cursor));
+                cursor[0] = endOfLine(block, cursor[0]);
+            }
+            frameLengths(frame, x, y, z, lengths);
+            statistics.accept(lengths);
+            if (rows != null) {
+                if (firstBufferedFrame < 0)
+                    firstBufferedFrame = frameNumber;
+                for (double length : lengths)
+                    rows.putDouble(length);
+                if (!rows.hasRemaining()) {
+                    writeRows(series, rows, firstBufferedFrame);
+                    firstBufferedFrame = -1;
+                }
+            }
+        }
+        if (rows != null && rows.position() > 0)
+            writeRows(series, rows, firstBufferedFrame);
+        return statistics;
+    }
+
+    private void writeRows(FileChannel series, ByteBuffer rows, long firstFrameNumber) throws IOException {
+        rows.flip();
+        long position = (firstFrameNumber - 1) * 8L * bonds;
+        while (rows.hasRemaining())
+            position += series.write(rows, position);
+        rows.clear();
+    }
+
+    private static int skipBlankLines(ByteBuffer buffer, int from) {
+        while (from < buffer.limit() && buffer.get(from) <= ' ')
+            from++;
+        return from;
+    }
+
+    private static int endOfLine(ByteBuffer buffer, int from) {
+        while (from < buffer.limit() && buffer.get(from) != '\n')
+            from++;
+        return Math.min(from + 1, buffer.limit());
+    }
+
+    private double nextNumber(ByteBuffer buffer, int[] cursor) throws IOException {
+        int from = cursor[0];
+        while (from < buffer.limit() && (buffer.get(from) == ' ' || buffer.get(from) == '\t'))
+            from++;
+        int to = from;
+        while (to < buffer.limit() && buffer.get(to) > ' ')
+            to++;
+        if (to == from)
+            throw new IOException("Truncated frame in " + path);
+        cursor[0] = to;
+        return FastDoubleParser.parse(buffer, from, to);
+    }
+
+    /**
+     * Works out the bond lengths of one frame with the same steps, in the same order, as {@link CellBatch}.
+     */
+    private void frameLengths(DoubleBuffer frame, double[] x, double[] y, double[] z, double[] lengths) {
+        double a00 = latticeVectors[0], a01 = latticeVectors[1], a02 = latticeVectors[2];
+        double a10 = latticeVectors[3], a11 = latticeVectors[4], a12 = latticeVectors[5];
+        double a20 = latticeVectors[6], a21 = latticeVectors[7], a22 = latticeVectors[8];
+        double parameter = latticeParameter;
+        for (int atom = 0; atom < x.length; atom++) {
+            double d0 = adjusted(frame.get(3 * atom)), d1 = adjusted(frame.get(3 * atom + 1));
+            double d2 = adjusted(frame.get(3 * atom + 2));
+            double cx = a00 * d0 + a10 * d1 + a20 * d2;
+            double cy = a01 * d0 + a11 * d1 + a21 * d2;
+            double cz = a02 * d0 + a12 * d1 + a22 * d2;
+            if (cx > Cell.tolerance * a00) {
+                cx -= a00;
+                cy -= a01;
+                cz -= a02;
+            }
+            cx *= parameter;
+            if (cy > Cell.tolerance * a11) {
+                cx -= a10;
+                cy -= a11;
+                cz -= a12;
+            }
+            cy *= parameter;
+            if (cz > Cell.tolerance * a22) {
+                cx -= a20;
+                cy -= a21;
+                cz -= a22;
+            }
+            cz *= parameter;
+            x[atom] = cx;
+            y[atom] = cy;
+            z[atom] = cz;
+        }
+        double shiftX = parameter * (a10 - a00);
+        double shiftY = parameter * (a11);
+        double imageX = parameter * (a10);
+        lengths[0] = distance(x[0], y[0], z[0], x[3], y[3], z[3]);
+        lengths[1] = distance(x[1], y[1], z[1], x[2], y[2], z[2]);
+        lengths[2] = distance(x[0], y[0], z[0], x[2] + shiftX, y[2] + shiftY, z[2]);
+        lengths[3] = distance(x[1], y[1], z[1], x[3] + imageX, y[3] + shiftY, z[3]);
+        for (int i = 0, bond = Cell.numberOfC; bond < bonds; i++)
+            if (code.charAt(i) != '0') {
+                int hydrogen = bond++;
+                lengths[hydrogen] = distance(x[i], y[i], z[i], x[hydrogen], y[hydrogen], z[hydrogen]);
+            }
+    }
+
+    private static double adjusted(double direct) {
+        return direct > Cell.tolerance ? direct - 1.0 : direct;
+    }
+
+    private static double distance(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double result = 0.0;
+        result += (x1 - x2) * (x1 - x2);
+        result += (y1 - y2) * (y1 - y2);
+        result += (z1 - z2) * (z1 - z2);
+        return Math.sqrt(result);
+    }
+
+    public int getNumberOfBonds() {
+        return bonds;
+    }
+
+    /**
+     * Prints the statistics of each bond along an XDATCAR. The arguments are the file, the cell code and,
+     * optionally, the file the time series is written to.
+     */
+    public static void main(String[] args) throws IOException {
+        Trajectory trajectory = open(Paths.get(args[0]), args[1]);
+        BondStatistics statistics;
+        if (args.length > 2) {
+            try (FileChannel series = FileChannel.open(Paths.get(args[2]), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                statistics = trajectory.analyze(Runtime.getRuntime().availableProcessors(), defaultBlockSize, series);
+            }
+        } else {
+            statistics = trajectory.analyze();
+        }
+        System.out.println(statistics.getFrames() + " frames");
+        for (int bond = 0; bond < statistics.getNumberOfBonds(); bond++) {
+            WeightedStatistics length = statistics.of(bond);
+            System.out.println(String.format(Locale.ROOT, "%s bond %d: %.6f ± %.6f Å (%.6f to %.6f)",
+                    bond < Cell.numberOfC ? "C-C" : "C-H", bond, length.getMean(), length.getStandardDeviation(),
+                    length.getMin(), length.getMax()));
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package configurations;
+
+import basics.BasicParser;
+import bounds.Structure;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Enumerates the unique hydrogenation codes of a cell, with their degeneracies. Each site of a code is 0
+ * (no hydrogen), 1 (hydrogen above the plane) or 2 (hydrogen below the plane). Two codes are the same
+ * configuration when a symmetry of the sites, possibly followed by swapping above and below, turns one into
+ * the other; the smallest code of each configuration is the one kept.
+ * <p>
+ * Codes are packed two bits per site, the first site in the highest bits, so that comparing packed codes is
+ * the same as comparing the strings.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class CodeEnumerator {
+
+    private static final int maxSites = 31;
+    private static final long threshold = 1 << 14;
+    private static final long lowBits = 0x5555555555555555L;
+
+    private final int sites;
+    private final int[][] shifts;
+    private final int parallelism;
+
+    public CodeEnumerator(SiteSymmetry symmetry) {
+        this(symmetry, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param symmetry    the symmetry of the sites.
+     * @param parallelism the number of threads enumerating codes.
+     */
+    public CodeEnumerator(SiteSymmetry symmetry, int parallelism) {
+        sites = symmetry.getSites();
+        if (sites < 1 || sites > maxSites)
+            throw new IllegalArgumentException("Cannot enumerate codes of " + sites + " sites");
+        List<int[]> permutations = symmetry.getPermutations();
+        shifts = new int[permutations.size()][sites];
+        for (int p = 0; p < permutations.size(); p++)
+            for (int site = 0; site < sites; site++)
+                shifts[p][site] = shift(permutations.get(p)[site]);
+        this.parallelism = parallelism;
+    }
+
+    private int shift(int site) {
+        return 2 * (sites - 1 - site);
+    }
+
+    /**
+     * @return every unique code, in increasing order, with its degeneracy.
+     */
+    public Map<String, Integer> enumerate() {
+        long total = 1;
+        for (int i = 0; i < sites; i++)
+            total *= 3;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<long[]> found = pool.invoke(new EnumerationTask(0, total));
+            Map<String, Integer> codes = new LinkedHashMap<>();
+            for (long[] code : found)
+                codes.put(toCode(code[0]), (int) code[1]);
+            return codes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private final class EnumerationTask extends RecursiveTask<List<long[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from, to;
+
+        private EnumerationTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<long[]> compute() {
+            if (to - from > threshold) {
+                long middle = (from + to) >>> 1;
+                EnumerationTask first = new EnumerationTask(from, middle);
+                first.fork();
+                List<long[]> second = new EnumerationTask(middle, to).compute();
+                List<long[]> found = first.join();
+                found.addAll(second);
+                return found;
+            }
+            List<long[]> found = new ArrayList<>();
+            for (long ordinal = from; ordinal < to; ordinal++) {
+                long packed = packed(ordinal);
+                int degeneracy = degeneracyIfCanonical(packed);
+                if (degeneracy > 0)
+                    found.add(new long[]{packed, degeneracy});
+            }
+            return found;
+        }
+    }
+
+    /**
+     * @param ordinal the index of a code, counting in base 3.
+     * @return the packed code.
+     */
+    private long packed(long ordinal) {
+        long packed = 0;
+        for (int shift = 0; shift < 2 * sites; shift += 2) {
+            packed |= (ordinal % 3) << shift;
+            ordinal /= 3;
+        }
+        return packed;
+    }
+
+    private static long swapped(long packed) {
+        return ((packed & lowBits) << 1) | ((packed >>> 1) & lowBits);
+    }
+
+    private long permuted(long packed, int[] shift) {
+        long image = 0;
+        for (int site = 0; site < sites; site++)
+            image |= ((packed >>> shift(site)) & 3L) << shift[site];
+        return image;
+    }
+
+    /**
+     * @param packed a packed code.
+     * @return the number of codes equivalent to this one, or 0 if a smaller equivalent code exists.
+     */
+    private int degeneracyIfCanonical(long packed) {
+        int stabilizer = 0;
+        for (int[] shift : shifts) {
+            long image = permuted(packed, shift);
+            long swappedImage = swapped(image);
+            if (image < packed || swappedImage < packed)
+                return 0;
+            if (image == packed)
+                stabilizer++;
+            if (swappedImage == packed)
+                stabilizer++;
+        }
+        return 2 * shifts.length / stabilizer;
+    }
+
+    private String toCode(long packed) {
+        char[] code = new char[sites];
+        for (int site = 0; site < sites; site++)
+            code[site] = (char) ('0' + ((packed >>> shift(site)) & 3L));
+        return new String(code);
+    }
+
+    /**
+     * Writes the codes in the format of the input of the report, one code and its degeneracy per line.
+     *
+     * @param codes    the codes and their degeneracies.
+     * @param filePath the output file path.
+     * @throws IOException if the file could not be written.
+     */
+    public static void writeEntries(Map<String, Integer> codes, String filePath) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            boolean first = true;
+            for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+                if (!first)
+                    bw.write("\n");
+                bw.write(entry.getKey() + " " + entry.getValue());
+                first = false;
+            }
+        }
+    }
+
+    /**
+     * Enumerates the codes of the cell of a POSCAR.
+     *
+     * @param args the POSCAR of the bare cell and the output file (by default, the 4-site cell and
+     *             res/io/enumerated_entry.txt, so that the reference table in res/io/entry.txt is kept).
+     */
+    public static void main(String[] args) throws IOException {
+        String poscar = args.length > 0 ? args[0] : BasicParser.resourcePath("poscar/POSCAR0000");
+        String output = args.length > 1 ? args[1] : BasicParser.resourcePath("io/enumerated_entry.txt");
+        Structure structure = new Structure(BasicParser.tokenizedFile(poscar));
+        writeEntries(new CodeEnumerator(SiteSymmetry.of(structure)).enumerate(), output);
+    }
+
+}
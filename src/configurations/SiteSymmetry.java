@@ -0,0 +1,175 @@
+package configurations;
+
+import bounds.Structure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The permutations of the carbon sites of a cell that leave its graphene lattice unchanged. Each permutation
+ * {@code p} sends the hydrogen of site {@code i} to site {@code p[i]}.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class SiteSymmetry {
+
+    private static final double tolerance = 0.05;
+
+    private final int sites;
+    private final List<int[]> permutations;
+
+    /**
+     * Builds the group generated by some permutations of the sites.
+     *
+     * @param sites      the number of sites.
+     * @param generators permutations of the sites.
+     */
+    public SiteSymmetry(int sites, List<int[]> generators) {
+        this.sites = sites;
+        Set<List<Integer>> group = new LinkedHashSet<>();
+        List<int[]> permutations = new ArrayList<>();
+        int[] identity = new int[sites];
+        for (int i = 0; i < sites; i++)
+            identity[i] = i;
+        List<int[]> pending = new ArrayList<>();
+        pending.add(identity);
+        while (!pending.isEmpty()) {
+            int[] permutation = pending.remove(pending.size() - 1);
+            if (!group.add(asList(permutation)))
+                continue;
+            permutations.add(permutation);
+            for (int[] generator : generators) {
+                if (generator.length != sites)
+                    throw new IllegalArgumentException("Permutation of " + generator.length + " sites for a cell of " + sites);
+                pending.add(compose(generator, permutation));
+            }
+        }
+        this.permutations = permutations;
+    }
+
+    /**
+     * Finds the symmetry of the carbon sites of a structure. Only the operations in the plane of the cell that
+     * keep its lattice are searched, since flipping the plane is the same as swapping above and below.
+     *
+     * @param structure the structure, whose carbons are the sites.
+     * @return the symmetry of the sites.
+     */
+    public static SiteSymmetry of(Structure structure) {
+        List<double[]> carbons = new ArrayList<>();
+        for (int atom = 0; atom < structure.getNumberOfAtoms(); atom++)
+            if (structure.speciesOf(atom).equals("C"))
+                carbons.add(structure.fractionalCoordinatesOf(atom));
+        double[][] lattice = structure.getLatticeVectors();
+        double[][] metric = new double[2][2];
+        for (int i = 0; i < 2; i++)
+            for (int j = 0; j < 2; j++)
+                metric[i][j] = dot(lattice[i], lattice[j]);
+        double area = Math.sqrt(metric[0][0] * metric[1][1] - metric[0][1] * metric[0][1]);
+        int bound = (int) Math.ceil(2.0 * Math.max(metric[0][0], metric[1][1]) / area) + 1;
+        List<int[]> generators = new ArrayList<>();
+        for (int r00 = -bound; r00 <= bound; r00++)
+            for (int r01 = -bound; r01 <= bound; r01++)
+                for (int r10 = -bound; r10 <= bound; r10++)
+                    for (int r11 = -bound; r11 <= bound; r11++) {
+                        int[][] rotation = {{r00, r01}, {r10, r11}};
+                        if (Math.abs(r00 * r11 - r01 * r10) != 1 || !keepsMetric(rotation, metric))
+                            continue;
+                        for (double[] target : carbons) {
+                            int[] permutation = permutation(carbons, rotation, target, lattice);
+                            if (permutation != null)
+                                generators.add(permutation);
+                        }
+                    }
+        return new SiteSymmetry(carbons.size(), generators);
+    }
+
+    private static boolean keepsMetric(int[][] rotation, double[][] metric) {
+        for (int i = 0; i < 2; i++)
+            for (int j = 0; j < 2; j++) {
+                double rotated = 0.0;
+                for (int k = 0; k < 2; k++)
+                    for (int l = 0; l < 2; l++)
+                        rotated += rotation[i][k] * metric[k][l] * rotation[j][l];
+                if (Math.abs(rotated - metric[i][j]) > 1e-4 * (metric[0][0] + metric[1][1]))
+                    return false;
+            }
+        return true;
+    }
+
+    /**
+     * @return the permutation made by rotating the sites and then moving the first one onto the target, or
+     * null if some site does not land on another site.
+     */
+    private static int[] permutation(List<double[]> carbons, int[][] rotation, double[] target, double[][] lattice) {
+        double[] first = rotated(carbons.get(0), rotation);
+        double[] translation = {target[0] - first[0], target[1] - first[1]};
+        int[] permutation = new int[carbons.size()];
+        for (int site = 0; site < carbons.size(); site++) {
+            double[] moved = rotated(carbons.get(site), rotation);
+            permutation[site] = -1;
+            for (int other = 0; other < carbons.size(); other++) {
+                double d0 = wrapped(moved[0] + translation[0] - carbons.get(other)[0]);
+                double d1 = wrapped(moved[1] + translation[1] - carbons.get(other)[1]);
+                double dx = d0 * lattice[0][0] + d1 * lattice[1][0];
+                double dy = d0 * lattice[0][1] + d1 * lattice[1][1];
+                if (dx * dx + dy * dy < tolerance * tolerance) {
+                    permutation[site] = other;
+                    break;
+                }
+            }
+            if (permutation[site] < 0)
+                return null;
+        }
+        return permutation;
+    }
+
+    private static double[] rotated(double[] fractional, int[][] rotation) {
+        return new double[]{fractional[0] * rotation[0][0] + fractional[1] * rotation[1][0],
+                fractional[0] * rotation[0][1] + fractional[1] * rotation[1][1]};
+    }
+
+    private static double wrapped(double delta) {
+        return delta - Math.rint(delta);
+    }
+
+    private static double dot(double[] u, double[] v) {
+        return u[0] * v[0] + u[1] * v[1] + u[2] * v[2];
+    }
+
+    private static int[] compose(int[] after, int[] before) {
+        int[] composed = new int[before.length];
+        for (int i = 0; i < before.length; i++)
+            composed[i] = after[before[i]];
+        return composed;
+    }
+
+    private static List<Integer> asList(int[] permutation) {
+        List<Integer> list = new ArrayList<>(permutation.length);
+        for (int site : permutation)
+            list.add(site);
+        return list;
+    }
+
+    public int getSites() {
+        return sites;
+    }
+
+    /**
+     * @return every permutation of the group, starting with the identity.
+     */
+    public List<int[]> getPermutations() {
+        List<int[]> copy = new ArrayList<>(permutations.size());
+        for (int[] permutation : permutations)
+            copy.add(Arrays.copyOf(permutation, sites));
+        return copy;
+    }
+
+    public int order() {
+        return permutations.size();
+    }
+
+}
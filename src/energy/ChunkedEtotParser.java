@@ -0,0 +1,266 @@
+package energy;
+
+import basics.FastDoubleParser;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses very long Etot files, such as dense scans with millions of rows, in parallel. The file is split into
+ * memory-mapped chunks aligned to line boundaries, and each chunk is parsed on its own fork-join task straight
+ * into primitive columns, while the same pass sweeps its energies. The sweeps of the chunks are then merged in
+ * file order, so the smallest energy, its index and the shape of the curve are exactly those of
+ * {@link EnergySeries} over the whole file, and no line is ever held as a String.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ChunkedEtotParser {
+
+    private static final long defaultChunkSize = 1 << 24;
+    private static final int parameterField = 0;
+    private static final int energyField = 5;
+
+    private final long chunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism the number of chunks parsed at the same time, by a pool shared by every file.
+     * @param chunkSize   the nominal size of a chunk (in bytes), before aligning it to a line boundary.
+     */
+    public ChunkedEtotParser(int parallelism, long chunkSize) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        if (chunkSize < 1 || chunkSize > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Chunks must have between 1 byte and 1 GB: " + chunkSize);
+        this.chunkSize = chunkSize;
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public ChunkedEtotParser() {
+        this(Runtime.getRuntime().availableProcessors(), defaultChunkSize);
+    }
+
+    /**
+     * The columns of one chunk, with the sweep of its energies: the first smallest one and whether they
+     * went up and then down again, assuming they had not gone up before the chunk.
+     */
+    static final class Chunk {
+
+        private double[] parameters;
+        private double[] energies;
+        private int size;
+        private long tokens;
+        private int smallestIndex;
+        private boolean ascended;
+        private boolean descended;
+        private boolean expected = true;
+
+        Chunk(int capacity) {
+            parameters = new double[Math.max(capacity, 16)];
+            energies = new double[parameters.length];
+        }
+
+        void add(double parameter, double energy) {
+            if (size == energies.length) {
+                parameters = Arrays.copyOf(parameters, 2 * size);
+                energies = Arrays.copyOf(energies, 2 * size);
+            }
+            if (size > 0) {
+                double previous = energies[size - 1];
+                if (energy < energies[smallestIndex])
+                    smallestIndex = size;
+                if (energy > previous) {
+                    ascended = true;
+                } else if (energy < previous) {
+                    descended = true;
+                    if (ascended)
+                        expected = false;
+                }
+            }
+            parameters[size] = parameter;
+            energies[size++] = energy;
+        }
+
+    }
+
+    /**
+     * Parses every line of a chunk, taking the lattice parameter and the energy out of their fields. Every
+     * byte up to the space, such as a tab or the NUL padding of a preallocated file, separates fields, and
+     * lines without fields are skipped, just like in {@link basics.TokenizedFile}.
+     */
+    private static Chunk parseChunk(Path file, FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = buffer.limit();
+        Chunk chunk = new Chunk(limit / 64);
+        int i = 0;
+        while (i < limit) {
+            int lineStart = i;
+            int field = 0;
+            double parameter = Double.NaN, energy = Double.NaN;
+            while (i < limit && buffer.get(i) != '\n') {
+                if ((buffer.get(i) & 0xFF) <= ' ') {
+                    i++;
+                    continue;
+                }
+                int tokenStart = i;
+                while (i < limit && (buffer.get(i) & 0xFF) > ' ')
+                    i++;
+                try {
+                    if (field == parameterField)
+                        parameter = FastDoubleParser.parse(buffer, tokenStart, i);
+                    else if (field == energyField)
+                        energy = FastDoubleParser.parse(buffer, tokenStart, i);
+                } catch (NumberFormatException e) {
+                    throw lineError(file, channel, start + lineStart, "field " + field + " is not a number");
+                }
+                field++;
+            }
+            i++;
+            if (field == 0)
+                continue;
+            if (field <= energyField)
+                throw lineError(file, channel, start + lineStart, "it has only " + field + " fields");
+            chunk.add(parameter, energy);
+            chunk.tokens += field;
+        }
+        return chunk;
+    }
+
+    /**
+     * Describes a line that could not be parsed. Its number is only worked out here, by counting the lines
+     * before it, since chunks do not know how many lines come before them.
+     */
+    private static IOException lineError(Path file, FileChannel channel, long lineStart, String problem)
+            throws IOException {
+        long line = 1;
+        ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+        for (long position = 0; position < lineStart; ) {
+            bytes.clear();
+            bytes.limit((int) Math.min(bytes.capacity(), lineStart - position));
+            int read = channel.read(bytes, position);
+            if (read < 0)
+                break;
+            for (int k = 0; k < read; k++)
+                if (bytes.get(k) == '\n')
+                    line++;
+            position += read;
+        }
+        return new IOException("Line " + line + " of " + file + " could not be parsed: " + problem);
+    }
+
+    /**
+     * Parses an Etot file into its series of energies.
+     *
+     * @param file the Etot file.
+     * @return the lattice parameters and energies of the file, with their merged sweep.
+     * @throws IOException if the file could not be read or has a line without an energy, naming that line.
+     */
+    public EnergySeries series(Path file) throws IOException {
+        long start = Metrics.start();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = VaspOutputScanner.lineAlignedBounds(channel, chunkSize);
+            List<Chunk> chunks = new ArrayList<>();
+            if (bounds.length == 2) {
+                chunks.add(parseChunk(file, channel, bounds[0], bounds[1]));
+            } else {
+                try {
+                    List<Callable<Chunk>> tasks = new ArrayList<>();
+                    for (int chunk = 0; chunk < bounds.length - 1; chunk++) {
+                        final long chunkStart = bounds[chunk], chunkEnd = bounds[chunk + 1];
+                        tasks.add(() -> parseChunk(file, channel, chunkStart, chunkEnd));
+                    }
+                    for (Future<Chunk> chunk : pool.invokeAll(tasks))
+                        chunks.add(chunk.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Parsing of " + file + " was interrupted");
+                } catch (ExecutionException e) {
+                    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+                        if (cause instanceof IOException)
+                            throw (IOException) cause;
+                    throw new IOException(e.getCause());
+                }
+            }
+            Metrics.add(Metrics.Counter.BYTES_READ, bounds[bounds.length - 1]);
+            return merge(chunks);
+        } finally {
+            Metrics.stop(Metrics.Stage.PARSE, start);
+        }
+    }
+
+    /**
+     * Merges the sweeps of the chunks in file order, and copies their columns once into whole-file arrays. A
+     * later chunk only takes the minimum if it is strictly smaller, so the first smallest energy wins; once
+     * the energies went up, in a chunk or across a boundary, any later fall means the curve misbehaved.
+     */
+    static EnergySeries merge(List<Chunk> chunks) {
+        long total = 0;
+        for (Chunk chunk : chunks)
+            total += chunk.size;
+        if (total > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many lines for one series: " + total);
+        double[] parameters = new double[(int) total];
+        double[] energies = new double[(int) total];
+        int offset = 0;
+        int smallestIndex = 0;
+        boolean ascended = false;
+        boolean expected = true;
+        long tokens = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.size == 0)
+                continue;
+            tokens += chunk.tokens;
+            if (offset == 0) {
+                smallestIndex = chunk.smallestIndex;
+            } else {
+                double previous = energies[offset - 1];
+                double first = chunk.energies[0];
+                if (first > previous)
+                    ascended = true;
+                else if (first < previous && ascended)
+                    expected = false;
+                if (chunk.energies[chunk.smallestIndex] < energies[smallestIndex])
+                    smallestIndex = offset + chunk.smallestIndex;
+            }
+            if (ascended ? chunk.descended : !chunk.expected)
+                expected = false;
+            ascended |= chunk.ascended;
+            System.arraycopy(chunk.parameters, 0, parameters, offset, chunk.size);
+            System.arraycopy(chunk.energies, 0, energies, offset, chunk.size);
+            offset += chunk.size;
+        }
+        Metrics.add(Metrics.Counter.TOKENS_PARSED, tokens);
+        return new EnergySeries(parameters, energies, smallestIndex, expected);
+    }
+
+    /**
+     * Prints the size, smallest energy, ideal parameter and shape of each Etot file given.
+     *
+     * @param args the paths of the Etot files.
+     */
+    public static void main(String[] args) throws IOException {
+        ChunkedEtotParser parser = new ChunkedEtotParser();
+        for (String argument : args) {
+            EnergySeries series = parser.series(Paths.get(argument));
+            System.out.println(argument + ": " + series.size() + " points, smallest energy "
+                    + series.getSmallestEnergy() + " eV at " + series.getIdealParameter() + " Å, "
+                    + (series.isGlobalMinimum() ? "behaved as expected" : "did not behave as expected"));
+        }
+    }
+
+}
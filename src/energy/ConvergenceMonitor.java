@@ -0,0 +1,272 @@
+package energy;
+
+import basics.FastDoubleParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Follows a sweep while it runs. Each new point updates the smallest energy, its position and the shape of
+ * the curve in constant time, with the same rule as {@link EnergySeries#isGlobalMinimum()}; as soon as the
+ * minimum is followed by enough rising points, the listener is told once, so that the remaining lattice
+ * parameters of the sweep can be cancelled.
+ * <p>
+ * Lines are read either in the Etot format, where the lattice parameter comes before the OSZICAR columns,
+ * or straight from an OSZICAR, where each <em>F=</em> line closes one point and points are numbered in order.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ConvergenceMonitor {
+
+    /**
+     * Told when the minimum of a sweep is bracketed.
+     */
+    public interface Listener {
+        void bracketed(ConvergenceMonitor monitor);
+    }
+
+    private static final byte[] energyMark = "E0=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] freeEnergyMark = "F=".getBytes(StandardCharsets.US_ASCII);
+    private static final int bufferSize = 8192;
+
+    private final int margin;
+    private final Listener listener;
+
+    private int count;
+    private double smallestEnergy = Double.NaN;
+    private double idealParameter = Double.NaN;
+    private int smallestIndex = -1;
+    private double previous;
+    private boolean ascended, globalMinimum = true, signalled;
+    private int risesAfterMinimum;
+
+    /**
+     * @param margin   how many rising points must follow the minimum before it counts as bracketed (points
+     *                 with the same energy as the one before them are not counted, but do not break the rise).
+     * @param listener told once, when the minimum is bracketed.
+     */
+    public ConvergenceMonitor(int margin, Listener listener) {
+        if (margin < 1)
+            throw new IllegalArgumentException("The margin must be at least one point");
+        this.margin = margin;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds the next point of the sweep.
+     *
+     * @param parameter the lattice parameter of the point.
+     * @param energy    its energy.
+     */
+    public void accept(double parameter, double energy) {
+        if (count == 0 || energy < smallestEnergy) {
+            smallestEnergy = energy;
+            idealParameter = parameter;
+            smallestIndex = count;
+            risesAfterMinimum = 0;
+        } else if (energy > previous) {
+            risesAfterMinimum++;
+        }
+        if (count > 0) {
+            if (energy > previous)
+                ascended = true;
+            else if (energy < previous && ascended)
+                globalMinimum = false;
+        }
+        previous = energy;
+        count++;
+        if (!signalled && isBracketed()) {
+            signalled = true;
+            if (listener != null)
+                listener.bracketed(this);
+        }
+    }
+
+    /**
+     * Adds the point of a line in the Etot or OSZICAR format. Lines without a final energy, such as the
+     * electronic steps of an OSZICAR, are ignored.
+     *
+     * @param buffer the buffer holding the line.
+     * @param start  the position of the first byte of the line.
+     * @param end    the position after its last byte.
+     * @return <em>true</em> if the line held a point.
+     */
+    public boolean acceptLine(ByteBuffer buffer, int start, int end) {
+        int energyStart = valueAfter(buffer, start, end, energyMark);
+        if (energyStart < 0)
+            return false;
+        int firstEnd = tokenEnd(buffer, tokenStart(buffer, start, end), end);
+        int secondStart = tokenStart(buffer, firstEnd, end);
+        double parameter = count;
+        if (!startsWith(buffer, secondStart, end, freeEnergyMark))
+            parameter = FastDoubleParser.parse(buffer, tokenStart(buffer, start, end), firstEnd);
+        accept(parameter, FastDoubleParser.parse(buffer, energyStart, tokenEnd(buffer, energyStart, end)));
+        return true;
+    }
+
+    public boolean acceptLine(String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        return acceptLine(buffer, 0, buffer.limit());
+    }
+
+    /**
+     * Reads a file as it grows, polling for appended lines, until the minimum is bracketed or the thread is
+     * interrupted. A file that shrinks is taken as a new sweep and read again from its start.
+     *
+     * @param file         the Etot or OSZICAR file.
+     * @param pollInterval the time between two polls (in milliseconds).
+     * @return <em>true</em> if the minimum was bracketed.
+     * @throws IOException if the file could not be read.
+     */
+    public boolean follow(Path file, long pollInterval) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        long position = 0;
+        while (!signalled && !Thread.currentThread().isInterrupted()) {
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            if (size < position) {
+                reset();
+                buffer.clear();
+                position = 0;
+            }
+            if (size > position) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    channel.position(position);
+                    while (!signalled && channel.read(buffer) > 0) {
+                        position = channel.position();
+                        buffer.flip();
+                        consumeLines(buffer);
+                        if (!buffer.hasRemaining())
+                            buffer.clear();
+                        else if (buffer.position() == 0 && buffer.limit() == buffer.capacity())
+                            buffer = ByteBuffer.allocate(2 * buffer.capacity()).put(buffer);
+                        else
+                            buffer.compact();
+                    }
+                }
+                continue;
+            }
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return signalled;
+    }
+
+    /**
+     * Accepts every complete line of the buffer, leaving it positioned at the start of the incomplete one.
+     */
+    private void consumeLines(ByteBuffer buffer) {
+        int start = buffer.position();
+        for (int i = start; i < buffer.limit() && !signalled; i++)
+            if (buffer.get(i) == '\n') {
+                acceptLine(buffer, start, i);
+                start = i + 1;
+            }
+        buffer.position(start);
+    }
+
+    private void reset() {
+        count = 0;
+        smallestEnergy = Double.NaN;
+        idealParameter = Double.NaN;
+        smallestIndex = -1;
+        ascended = false;
+        globalMinimum = true;
+        risesAfterMinimum = 0;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static int tokenStart(ByteBuffer buffer, int from, int end) {
+        while (from < end && isBlank(buffer.get(from)))
+            from++;
+        return from;
+    }
+
+    private static int tokenEnd(ByteBuffer buffer, int from, int end) {
+        while (from < end && !isBlank(buffer.get(from)))
+            from++;
+        return from;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int from, int end, byte[] mark) {
+        if (end - from < mark.length)
+            return false;
+        for (int k = 0; k < mark.length; k++)
+            if (buffer.get(from + k) != mark[k])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the start of the value following the mark, or -1 if the line does not have the mark.
+     */
+    private static int valueAfter(ByteBuffer buffer, int start, int end, byte[] mark) {
+        for (int i = start; i <= end - mark.length; i++)
+            if (startsWith(buffer, i, end, mark)) {
+                int value = tokenStart(buffer, i + mark.length, end);
+                return value < end ? value : -1;
+            }
+        return -1;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getSmallestEnergy() {
+        return smallestEnergy;
+    }
+
+    public int getSmallestIndex() {
+        return smallestIndex;
+    }
+
+    public double getIdealParameter() {
+        return idealParameter;
+    }
+
+    public boolean isGlobalMinimum() {
+        return globalMinimum;
+    }
+
+    /**
+     * @return <em>true</em> if the curve has the expected shape and its minimum has at least one point before
+     * it and the margin of rising points after it.
+     */
+    public boolean isBracketed() {
+        return globalMinimum && smallestIndex > 0 && risesAfterMinimum >= margin;
+    }
+
+    /**
+     * Follows an Etot or OSZICAR file, and writes a marker file next to it when the minimum is bracketed.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : EtotParser.filePathFor("0000"));
+        int margin = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        Path marker = file.resolveSibling(file.getFileName() + ".converged");
+        ConvergenceMonitor monitor = new ConvergenceMonitor(margin, bracketed -> {
+            String message = "Minimum of " + bracketed.getSmallestEnergy() + " eV bracketed at "
+                    + bracketed.getIdealParameter() + " after " + bracketed.getCount() + " points";
+            System.out.println(file.getFileName() + ": " + message);
+            try {
+                Files.write(marker, (message + "\n").getBytes(StandardCharsets.US_ASCII));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        monitor.follow(file, 500);
+    }
+
+}
@@ -0,0 +1,266 @@
+package energy;
+
+/**
+ * Least-squares fit of an energy curve, with the optimum lattice parameter it predicts and the uncertainty of
+ * that optimum. Two models are available: a parabola in the lattice parameter, for the points closest to the
+ * minimum, and the third-order Birch–Murnaghan equation of state, which is a cubic polynomial in
+ * <em>a</em><sup>-2</sup> since the volume of the cell grows as <em>a</em><sup>3</sup>.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class CurveFit {
+
+    public enum Model {
+        PARABOLA(2), BIRCH_MURNAGHAN(3);
+
+        private final int degree;
+
+        Model(int degree) {
+            this.degree = degree;
+        }
+
+        private double variable(double parameter) {
+            return this == PARABOLA ? parameter : 1.0 / (parameter * parameter);
+        }
+
+        private double parameter(double variable) {
+            return this == PARABOLA ? variable : 1.0 / Math.sqrt(variable);
+        }
+
+        private double parameterDerivative(double variable) {
+            return this == PARABOLA ? 1.0 : -0.5 / (variable * Math.sqrt(variable));
+        }
+    }
+
+    private final Model model;
+    private final int points;
+    private final double center, scale;
+    private final double[] coefficients;
+    private final double[][] covariance;
+    private final double residual;
+    private final double idealParameter;
+    private final double smallestEnergy;
+    private final double uncertainty;
+
+    private CurveFit(Model model, double[] parameters, double[] energies, int from, int to) {
+        this.model = model;
+        points = to - from;
+        int terms = model.degree + 1;
+        if (points < terms)
+            throw new IllegalArgumentException(model + " needs at least " + terms + " points, not " + points);
+        double low = Double.POSITIVE_INFINITY, high = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            low = Math.min(low, model.variable(parameters[i]));
+            high = Math.max(high, model.variable(parameters[i]));
+        }
+        center = 0.5 * (low + high);
+        scale = high > low ? 0.5 * (high - low) : 1.0;
+        double[][] normal = new double[terms][terms];
+        double[] right = new double[terms];
+        for (int i = from; i < to; i++) {
+            double u = (model.variable(parameters[i]) - center) / scale;
+            double[] powers = powers(u, terms);
+            for (int j = 0; j < terms; j++) {
+                right[j] += powers[j] * energies[i];
+                for (int k = 0; k < terms; k++)
+                    normal[j][k] += powers[j] * powers[k];
+            }
+        }
+        double[][] inverse = inverse(normal);
+        coefficients = new double[terms];
+        for (int j = 0; j < terms; j++)
+            for (int k = 0; k < terms; k++)
+                coefficients[j] += inverse[j][k] * right[k];
+        double squares = 0.0;
+        for (int i = from; i < to; i++) {
+            double difference = energies[i] - polynomial((model.variable(parameters[i]) - center) / scale);
+            squares += difference * difference;
+        }
+        int freedom = points - terms;
+        residual = freedom > 0 ? Math.sqrt(squares / freedom) : Double.NaN;
+        covariance = new double[terms][terms];
+        for (int j = 0; j < terms; j++)
+            for (int k = 0; k < terms; k++)
+                covariance[j][k] = residual * residual * inverse[j][k];
+        double u = minimum();
+        if (Double.isNaN(u)) {
+            idealParameter = Double.NaN;
+            smallestEnergy = Double.NaN;
+            uncertainty = Double.NaN;
+        } else {
+            double variable = center + scale * u;
+            idealParameter = model.parameter(variable);
+            smallestEnergy = polynomial(u);
+            uncertainty = Math.abs(model.parameterDerivative(variable) * scale) * minimumDeviation(u);
+        }
+    }
+
+    /**
+     * Fits a parabola to the points closest to the smallest energy.
+     *
+     * @param series the energy series.
+     * @param window how many points around the smallest energy are used (at least 3).
+     * @return the fit.
+     */
+    public static CurveFit parabola(EnergySeries series, int window) {
+        int size = series.size();
+        int count = Math.min(Math.max(window, 3), size);
+        int from = Math.max(0, Math.min(series.getSmallestIndex() - count / 2, size - count));
+        return new CurveFit(Model.PARABOLA, series.getParameters(), series.getEnergies(), from, from + count);
+    }
+
+    /**
+     * Fits the Birch–Murnaghan equation of state to every point of the series.
+     *
+     * @param series the energy series.
+     * @return the fit.
+     */
+    public static CurveFit birchMurnaghan(EnergySeries series) {
+        return new CurveFit(Model.BIRCH_MURNAGHAN, series.getParameters(), series.getEnergies(), 0, series.size());
+    }
+
+    private static double[] powers(double u, int terms) {
+        double[] powers = new double[terms];
+        powers[0] = 1.0;
+        for (int j = 1; j < terms; j++)
+            powers[j] = powers[j - 1] * u;
+        return powers;
+    }
+
+    private double polynomial(double u) {
+        double value = 0.0;
+        for (int j = coefficients.length - 1; j >= 0; j--)
+            value = value * u + coefficients[j];
+        return value;
+    }
+
+    private double slope(double u) {
+        double value = 0.0;
+        for (int j = coefficients.length - 1; j >= 1; j--)
+            value = value * u + j * coefficients[j];
+        return value;
+    }
+
+    private double curvature(double u) {
+        double value = 0.0;
+        for (int j = coefficients.length - 1; j >= 2; j--)
+            value = value * u + j * (j - 1) * coefficients[j];
+        return value;
+    }
+
+    /**
+     * @return the position (in the scaled variable) of the minimum of the polynomial closest to the center of
+     * the data, or NaN if the fitted curve has no minimum.
+     */
+    private double minimum() {
+        if (coefficients.length == 3)
+            return coefficients[2] > 0.0 ? -coefficients[1] / (2.0 * coefficients[2]) : Double.NaN;
+        double a = 3.0 * coefficients[3], b = 2.0 * coefficients[2], c = coefficients[1];
+        double best = Double.NaN;
+        if (a == 0.0) {
+            if (b > 0.0)
+                best = -c / b;
+            return best;
+        }
+        double discriminant = b * b - 4.0 * a * c;
+        if (discriminant < 0.0)
+            return Double.NaN;
+        double root = Math.sqrt(discriminant);
+        for (double u : new double[]{(-b + root) / (2.0 * a), (-b - root) / (2.0 * a)})
+            if (curvature(u) > 0.0 && (Double.isNaN(best) || Math.abs(u) < Math.abs(best)))
+                best = u;
+        return best;
+    }
+
+    /**
+     * Propagates the covariance of the coefficients to the position of the minimum, where the slope is zero.
+     */
+    private double minimumDeviation(double u) {
+        double curvature = curvature(u);
+        double[] gradient = new double[coefficients.length];
+        for (int j = 1; j < coefficients.length; j++)
+            gradient[j] = -j * Math.pow(u, j - 1) / curvature;
+        double variance = 0.0;
+        for (int j = 0; j < gradient.length; j++)
+            for (int k = 0; k < gradient.length; k++)
+                variance += gradient[j] * covariance[j][k] * gradient[k];
+        return Math.sqrt(Math.max(variance, 0.0));
+    }
+
+    private static double[][] inverse(double[][] matrix) {
+        int n = matrix.length;
+        double[][] a = new double[n][2 * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(matrix[i], 0, a[i], 0, n);
+            a[i][n + i] = 1.0;
+        }
+        for (int column = 0; column < n; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < n; row++)
+                if (Math.abs(a[row][column]) > Math.abs(a[pivot][column]))
+                    pivot = row;
+            if (a[pivot][column] == 0.0)
+                throw new IllegalArgumentException("The points do not determine the fit");
+            double[] swap = a[column];
+            a[column] = a[pivot];
+            a[pivot] = swap;
+            double divisor = a[column][column];
+            for (int k = 0; k < 2 * n; k++)
+                a[column][k] /= divisor;
+            for (int row = 0; row < n; row++) {
+                if (row == column)
+                    continue;
+                double factor = a[row][column];
+                for (int k = 0; k < 2 * n; k++)
+                    a[row][k] -= factor * a[column][k];
+            }
+        }
+        double[][] inverse = new double[n][n];
+        for (int i = 0; i < n; i++)
+            System.arraycopy(a[i], n, inverse[i], 0, n);
+        return inverse;
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * @return the energy predicted by the fit at a lattice parameter.
+     */
+    public double energyAt(double parameter) {
+        return polynomial((model.variable(parameter) - center) / scale);
+    }
+
+    /**
+     * @return the lattice parameter of the fitted minimum, which may fall between grid points (NaN if the
+     * fitted curve has no minimum).
+     */
+    public double getIdealParameter() {
+        return idealParameter;
+    }
+
+    public double getSmallestEnergy() {
+        return smallestEnergy;
+    }
+
+    /**
+     * @return the standard deviation of the ideal parameter, or NaN if there are no more points than terms.
+     */
+    public double getUncertainty() {
+        return uncertainty;
+    }
+
+    /**
+     * @return the root mean square of the residuals, corrected for the number of terms.
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+}
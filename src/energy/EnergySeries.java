@@ -0,0 +1,206 @@
+package energy;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive series of energies against lattice parameters. The smallest energy, its index and the shape of
+ * the curve are found by a single fused sweep over a {@code double[]}, without any boxing.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class EnergySeries {
+
+    private final double[] parameters;
+    private final double[] energies;
+    private final double smallestEnergy;
+    private final int smallestIndex;
+    private final boolean globalMinimum;
+
+    /**
+     * @param parameters the lattice parameter of each iteration.
+     * @param energies   the energy of the cell for each iteration.
+     */
+    public EnergySeries(double[] parameters, double[] energies) {
+        this(parameters, energies, sweep(energies));
+    }
+
+    /**
+     * Builds a series whose sweep was already done, such as the merged sweep of the chunks of a big Etot.
+     *
+     * @param smallestIndex the index of the first smallest energy.
+     * @param globalMinimum whether the smallest energy is a global minimum.
+     */
+    EnergySeries(double[] parameters, double[] energies, int smallestIndex, boolean globalMinimum) {
+        this(parameters, energies, ((long) smallestIndex << 1) | (globalMinimum ? 1 : 0));
+    }
+
+    private EnergySeries(double[] parameters, double[] energies, long sweep) {
+        if (parameters.length != energies.length)
+            throw new IllegalArgumentException("There are " + parameters.length + " parameters for "
+                    + energies.length + " energies");
+        this.parameters = parameters;
+        this.energies = energies;
+        smallestIndex = (int) (sweep >> 1);
+        smallestEnergy = energies.length == 0 ? Double.NaN : energies[smallestIndex];
+        globalMinimum = (sweep & 1) == 1;
+    }
+
+    /**
+     * Finds the index of the first smallest energy and checks whether the curve never goes down again after
+     * it starts going up, in the same pass.
+     *
+     * @param energies the energy values.
+     * @return the index of the smallest energy shifted left by one, with the shape flag in the lowest bit.
+     */
+    private static long sweep(double[] energies) {
+        int index = 0;
+        double smallest = energies.length == 0 ? Double.NaN : energies[0];
+        double previous = smallest;
+        boolean ascended = false;
+        boolean expected = true;
+        for (int i = 1; i < energies.length; i++) {
+            double current = energies[i];
+            if (current < smallest) {
+                smallest = current;
+                index = i;
+            }
+            if (current > previous)
+                ascended = true;
+            else if (current < previous && ascended)
+                expected = false;
+            previous = current;
+        }
+        return ((long) index << 1) | (expected ? 1 : 0);
+    }
+
+    /**
+     * @param energies the energy values.
+     * @return the index of the first occurrence of the smallest energy.
+     */
+    public static int smallestIndex(double[] energies) {
+        return (int) (sweep(energies) >> 1);
+    }
+
+    /**
+     * Checks if the smallest energy is a global minimum, which means the energies never go down again after
+     * they start going up.
+     *
+     * @param energies the energy values.
+     * @return <em>true</em> if the smallest energy is a global minimum.
+     */
+    public static boolean isGlobalMinimum(double[] energies) {
+        return (sweep(energies) & 1) == 1;
+    }
+
+    /**
+     * Unboxes a list of energies once, so that the primitive kernels can run over it.
+     *
+     * @param energyList a list containing the energy values.
+     * @return the same values in a primitive array.
+     */
+    public static double[] unboxed(List<Double> energyList) {
+        double[] energies = new double[energyList.size()];
+        int i = 0;
+        for (double energy : energyList) energies[i++] = energy;
+        return energies;
+    }
+
+    public int size() {
+        return energies.length;
+    }
+
+    public double parameterAt(int index) {
+        return parameters[index];
+    }
+
+    public double energyAt(int index) {
+        return energies[index];
+    }
+
+    public double[] getParameters() {
+        return Arrays.copyOf(parameters, parameters.length);
+    }
+
+    public double[] getEnergies() {
+        return Arrays.copyOf(energies, energies.length);
+    }
+
+    public double getSmallestEnergy() {
+        return smallestEnergy;
+    }
+
+    /**
+     * @return the index of the first occurrence of the smallest energy.
+     */
+    public int getSmallestIndex() {
+        return smallestIndex;
+    }
+
+    public double getIdealParameter() {
+        return parameters[smallestIndex];
+    }
+
+    /**
+     * @return <em>true</em> if the smallest energy is a global minimum.
+     */
+    public boolean isGlobalMinimum() {
+        return globalMinimum;
+    }
+
+    /**
+     * The minimum is bracketed when the curve behaved as expected and there are points on both of its sides.
+     *
+     * @return <em>true</em> if the smallest energy is a global minimum strictly inside the sweep.
+     */
+    public boolean isBracketed() {
+        return globalMinimum && smallestIndex > 0 && smallestIndex < energies.length - 1;
+    }
+
+    /**
+     * Second derivative of the energy by three-point finite differences, which also works for grids that
+     * are not evenly spaced.
+     *
+     * @param index the index of an inner point of the series.
+     * @return the curvature (in eV/Å²) at that point.
+     */
+    public double curvatureAt(int index) {
+        if (index < 1 || index > energies.length - 2)
+            throw new IndexOutOfBoundsException("No curvature at the border point " + index);
+        double before = parameters[index] - parameters[index - 1];
+        double after = parameters[index + 1] - parameters[index];
+        double slopeBefore = (energies[index] - energies[index - 1]) / before;
+        double slopeAfter = (energies[index + 1] - energies[index]) / after;
+        return 2.0 * (slopeAfter - slopeBefore) / (before + after);
+    }
+
+    /**
+     * @return the curvature at the smallest energy, or NaN if the minimum is at a border of the sweep.
+     */
+    public double curvatureAtMinimum() {
+        return smallestIndex > 0 && smallestIndex < energies.length - 1 ? curvatureAt(smallestIndex) : Double.NaN;
+    }
+
+    /**
+     * Curvature of every inner point, in one sweep. The border points are left as NaN.
+     *
+     * @return the curvature at each point of the series.
+     */
+    public double[] curvatures() {
+        int size = energies.length;
+        double[] curvatures = new double[size];
+        if (size == 0)
+            return curvatures;
+        curvatures[0] = Double.NaN;
+        curvatures[size - 1] = Double.NaN;
+        for (int i = 1; i < size - 1; i++) {
+            double before = parameters[i] - parameters[i - 1];
+            double after = parameters[i + 1] - parameters[i];
+            curvatures[i] = 2.0 * ((energies[i + 1] - energies[i]) / after - (energies[i] - energies[i - 1]) / before)
+                    / (before + after);
+        }
+        return curvatures;
+    }
+
+}
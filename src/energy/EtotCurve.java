@@ -0,0 +1,138 @@
+package energy;
+
+import basics.TokenizedFile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable energy curve of a cell, built from a single parse of its Etot file. The lattice parameters are
+ * kept as written in the file, so that they can be reported as they are.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class EtotCurve {
+
+    private final String[] parameters;
+    private final EnergySeries series;
+
+    /**
+     * Builds the curve out of the parsed double array of Etot.
+     *
+     * @param parsedEtot a double String array out of an Etot.
+     */
+    public EtotCurve(String[][] parsedEtot) {
+        int size = parsedEtot.length;
+        parameters = new String[size];
+        double[] parameterValues = new double[size];
+        double[] energies = new double[size];
+        for (int i = 0; i < size; i++) {
+            parameters[i] = parsedEtot[i][0];
+            parameterValues[i] = Double.valueOf(parsedEtot[i][0]);
+            energies[i] = Double.valueOf(parsedEtot[i][5]);
+        }
+        series = new EnergySeries(parameterValues, energies);
+    }
+
+    /**
+     * Builds the curve out of a tokenized Etot, reading the energies straight from the bytes of the file.
+     *
+     * @param tokenizedEtot a tokenized Etot.
+     */
+    public EtotCurve(TokenizedFile tokenizedEtot) {
+        int size = tokenizedEtot.lineCount();
+        parameters = new String[size];
+        for (int i = 0; i < size; i++)
+            parameters[i] = tokenizedEtot.textAt(i, 0);
+        series = new EnergySeries(tokenizedEtot.doubleColumn(0), tokenizedEtot.doubleColumn(5));
+    }
+
+    /**
+     * Builds the curve out of values that were already parsed, such as the ones of a stored result.
+     *
+     * @param parameters the lattice parameter of each iteration, as written in the Etot.
+     * @param energies   the energy of the cell for each iteration.
+     */
+    public EtotCurve(String[] parameters, double[] energies) {
+        this.parameters = parameters.clone();
+        double[] parameterValues = new double[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            parameterValues[i] = Double.valueOf(parameters[i]);
+        series = new EnergySeries(parameterValues, energies.clone());
+    }
+
+    /**
+     * Builds the curve out of values that were already parsed, without reading the parameters back from their
+     * text. The arrays are kept, not copied.
+     *
+     * @param parameters      the lattice parameter of each iteration, as written in the Etot.
+     * @param parameterValues the lattice parameter of each iteration.
+     * @param energies        the energy of the cell for each iteration.
+     */
+    public EtotCurve(String[] parameters, double[] parameterValues, double[] energies) {
+        this.parameters = parameters;
+        series = new EnergySeries(parameterValues, energies);
+    }
+
+    public int size() {
+        return parameters.length;
+    }
+
+    public String parameterAt(int index) {
+        return parameters[index];
+    }
+
+    public double energyAt(int index) {
+        return series.energyAt(index);
+    }
+
+    /**
+     * @return the primitive series behind this curve.
+     */
+    public EnergySeries getSeries() {
+        return series;
+    }
+
+    /**
+     * @return a new list with the energy of the cell for each iteration.
+     */
+    public List<Double> energyList() {
+        List<Double> energyList = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) energyList.add(series.energyAt(i));
+        return energyList;
+    }
+
+    /**
+     * @return a new list with the lattice parameter of each iteration.
+     */
+    public List<String> parameterList() {
+        List<String> parameterList = new ArrayList<>(parameters.length);
+        Collections.addAll(parameterList, parameters);
+        return parameterList;
+    }
+
+    public double getSmallestEnergy() {
+        return series.getSmallestEnergy();
+    }
+
+    /**
+     * @return the index of the first occurrence of the smallest energy.
+     */
+    public int getSmallestIndex() {
+        return series.getSmallestIndex();
+    }
+
+    public String getIdealParameter() {
+        return parameters[series.getSmallestIndex()];
+    }
+
+    /**
+     * @return <em>true</em> if the smallest energy is a global minimum.
+     */
+    public boolean isGlobalMinimum() {
+        return series.isGlobalMinimum();
+    }
+
+}
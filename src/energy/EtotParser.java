@@ -1,10 +1,12 @@
 package energy;
 
 import basics.BasicParser;
+import metrics.Metrics;
 
 import java.util.ArrayList;
-import java.util.DoubleSummaryStatistics;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Parser for Etot (total energy of cells) obtained during convergence simulations.
@@ -14,8 +16,26 @@ import java.util.List;
  */
 public class EtotParser extends BasicParser {
 
-    private static final String basicPath = "res/etot/results/";
+    private static final String basicPath = "etot/results/";
     private static final String extension = ".dat";
+    private static final int cacheCapacity = 256;
+
+    private static final Map<String, CachedCurve> curveCache = new LinkedHashMap<String, CachedCurve>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCurve> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+
+    private static final class CachedCurve {
+        private final long lastModified;
+        private final EtotCurve curve;
+
+        private CachedCurve(long lastModified, EtotCurve curve) {
+            this.lastModified = lastModified;
+            this.curve = curve;
+        }
+    }
 
     /**
      * Gets the cell energy for each iteration, out of the parsed double array of Etot.
@@ -35,6 +55,41 @@ public class EtotParser extends BasicParser {
         return parameterList;
     }
 
+    /**
+     * @param cellCode the cell code.
+     * @return the path of the Etot file of the cell.
+     */
+    public static String filePathFor(String cellCode) {
+        return resourcePath(basicPath + cellCode + extension);
+    }
+
+    /**
+     * Gets the energy curve of a cell. Curves are kept in a bounded LRU cache, and a curve is parsed again
+     * only when its Etot file was modified since it was cached.
+     *
+     * @param cellCode the cell code.
+     * @return the energy curve of the cell.
+     */
+    public static EtotCurve curve(String cellCode) {
+        String filePath = filePathFor(cellCode);
+        long lastModified = lastModified(filePath);
+        synchronized (curveCache) {
+            CachedCurve cached = curveCache.get(cellCode);
+            if (cached != null && cached.lastModified == lastModified) {
+                Metrics.increment(Metrics.Counter.CURVE_CACHE_HITS);
+                return cached.curve;
+            }
+        }
+        Metrics.increment(Metrics.Counter.CURVE_CACHE_MISSES);
+        long start = Metrics.start();
+        EtotCurve curve = new EtotCurve(tokenizedFile(filePath));
+        Metrics.stop(Metrics.Stage.ETOT, start);
+        synchronized (curveCache) {
+            curveCache.put(cellCode, new CachedCurve(lastModified, curve));
+        }
+        return curve;
+    }
+
     /**
      * A union of the parsing methods.
      *
@@ -42,11 +97,11 @@ public class EtotParser extends BasicParser {
      * @return a list of double precision values for the energy of the cell.
      */
     public static List<Double> energyList(String cellCode) {
-        return energyList(initialParsing(basicPath + cellCode + extension));
+        return curve(cellCode).energyList();
     }
 
     public static List<String> parameterList(String cellCode) {
-        return parameterList(initialParsing(basicPath + cellCode + extension));
+        return curve(cellCode).parameterList();
     }
 
     /**
@@ -56,22 +111,26 @@ public class EtotParser extends BasicParser {
      * @return a double precision value containing the smallest energy of the iteration.
      */
     public static double smallestEnergy(List<Double> energyList) {
-        double smallestEnergy = energyList.get(0);
-        for (double energy : energyList)
-            if (smallestEnergy > energy)
-                smallestEnergy = energy;
-        return smallestEnergy;
+        double[] energies = EnergySeries.unboxed(energyList);
+        return energies[EnergySeries.smallestIndex(energies)];
     }
 
     public static double smallestEnergy(String cellCode) {
-        return smallestEnergy(energyList(cellCode));
+        return curve(cellCode).getSmallestEnergy();
+    }
+
+    /**
+     * Gets the primitive energy series of a cell, out of its cached curve.
+     *
+     * @param cellCode the cell code.
+     * @return the energy series of the cell.
+     */
+    public static EnergySeries energySeries(String cellCode) {
+        return curve(cellCode).getSeries();
     }
 
     public static String idealParameterFor(String cellCode) {
-        List<Double> energyList = energyList(cellCode);
-        double smallestEnergy = smallestEnergy(energyList);
-        int index = energyList.indexOf(smallestEnergy);
-        return parameterList(cellCode).get(index);
+        return curve(cellCode).getIdealParameter();
     }
 
     /**
@@ -82,25 +141,11 @@ public class EtotParser extends BasicParser {
      * @return <em>true</em> if the energy is a global minimum.
      */
     public static boolean isGlobalMinimum(List<Double> energyList) {
-        double smallestEnergy = smallestEnergy(energyList);
-        int itsIndex = energyList.indexOf(smallestEnergy);
-        for (int i = 1; i < energyList.size() - 1; i++) {
-            double current = energyList.get(i);
-            if (i < itsIndex) {
-                double previous = energyList.get(i - 1);
-                if (previous < current)
-                    return false;
-            } else {
-                double next = energyList.get(i + 1);
-                if (next < current)
-                    return false;
-            }
-        }
-        return true;
+        return EnergySeries.isGlobalMinimum(EnergySeries.unboxed(energyList));
     }
 
     public static boolean isGlobalMinimum(String cellCode) {
-        return isGlobalMinimum(energyList(cellCode));
+        return curve(cellCode).isGlobalMinimum();
     }
 
 }
@@ -0,0 +1,200 @@
+package energy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Suggests which lattice parameters should be computed next for a cell, instead of sweeping a dense grid.
+ * While the smallest energy sits on a border of the points computed so far, the search steps outwards; once
+ * the minimum is bracketed, a parabola is fitted around it and the next points are placed at and around the
+ * fitted optimum until its uncertainty is below the tolerance or the grid has no closer points left.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class SamplingAdvisor {
+
+    static final int window = 5;
+
+    private final double resolution;
+    private final double tolerance;
+
+    /**
+     * @param resolution the spacing of the grid the suggested parameters are rounded to (in Å).
+     * @param tolerance  the uncertainty of the fitted optimum below which the search stops (in Å).
+     */
+    public SamplingAdvisor(double resolution, double tolerance) {
+        this.resolution = resolution;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Advisor for the 0.001 Å grid of the Etot sweeps, converging at half of its spacing.
+     */
+    public SamplingAdvisor() {
+        this(0.001, 0.0005);
+    }
+
+    /**
+     * The outcome of one round of advice.
+     */
+    public static final class Advice {
+
+        private final CurveFit fit;
+        private final List<Double> nextParameters;
+
+        private Advice(CurveFit fit, List<Double> nextParameters) {
+            this.fit = fit;
+            this.nextParameters = nextParameters;
+        }
+
+        /**
+         * @return the fit around the bracketed minimum, or null while the minimum is not bracketed.
+         */
+        public CurveFit getFit() {
+            return fit;
+        }
+
+        /**
+         * @return the lattice parameters to compute next, empty once the search has converged.
+         */
+        public List<Double> getNextParameters() {
+            return nextParameters;
+        }
+
+        public boolean isConverged() {
+            return nextParameters.isEmpty();
+        }
+
+    }
+
+    /**
+     * @param series the energies computed so far, in any order of lattice parameter.
+     * @return the advice for the next round.
+     */
+    public Advice advise(EnergySeries series) {
+        if (series.size() == 0)
+            throw new IllegalArgumentException("There must be at least one computed point");
+        EnergySeries sorted = sorted(series);
+        double[] parameters = sorted.getParameters();
+        int size = sorted.size();
+        int index = sorted.getSmallestIndex();
+        double step = 10 * resolution;
+        for (int i = 1; i < size; i++)
+            step = i == 1 ? parameters[1] - parameters[0] : Math.min(step, parameters[i] - parameters[i - 1]);
+        List<Double> next = new ArrayList<>();
+        if (index == 0 || index == size - 1) {
+            if (index == 0)
+                addIfNew(next, parameters, parameters[0] - step);
+            if (index == size - 1)
+                addIfNew(next, parameters, parameters[size - 1] + step);
+            if (next.isEmpty())
+                addIfNew(next, parameters, parameters[index] + (index == 0 ? 1 : -1) * step);
+            return new Advice(null, next);
+        }
+        CurveFit fit = CurveFit.parabola(sorted, window);
+        double ideal = fit.getIdealParameter();
+        if (Double.isNaN(ideal) || ideal < parameters[index - 1] || ideal > parameters[index + 1])
+            ideal = parameters[index];
+        if (!(fit.getUncertainty() <= tolerance)) {
+            double spread = 0.5 * Math.min(parameters[index] - parameters[index - 1],
+                    parameters[index + 1] - parameters[index]);
+            double half = Math.max(resolution, spread);
+            addIfNew(next, parameters, ideal);
+            addIfNew(next, parameters, ideal - half);
+            addIfNew(next, parameters, ideal + half);
+            if (next.isEmpty()) {
+                addIfNew(next, parameters, ideal - resolution);
+                addIfNew(next, parameters, ideal + resolution);
+            }
+        }
+        return new Advice(fit, next);
+    }
+
+    private static EnergySeries sorted(EnergySeries series) {
+        int size = series.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, (first, second) -> Double.compare(series.parameterAt(first), series.parameterAt(second)));
+        double[] parameters = new double[size];
+        double[] energies = new double[size];
+        for (int i = 0; i < size; i++) {
+            parameters[i] = series.parameterAt(order[i]);
+            energies[i] = series.energyAt(order[i]);
+        }
+        return new EnergySeries(parameters, energies);
+    }
+
+    private void addIfNew(List<Double> next, double[] computed, double parameter) {
+        double rounded = Math.round(parameter / resolution) * resolution;
+        for (double value : computed)
+            if (Math.abs(value - rounded) < 0.5 * resolution)
+                return;
+        for (double value : next)
+            if (Math.abs(value - rounded) < 0.5 * resolution)
+                return;
+        next.add(rounded);
+    }
+
+    /**
+     * Replays the advice against a sweep that was already computed, starting from its first, middle and last
+     * points and taking each suggested point from the sweep, as a measure of how many runs the advisor needs.
+     *
+     * @param sweep the complete sweep of a cell.
+     * @return the points the advisor asked for, in the order they were computed.
+     */
+    public EnergySeries replay(EnergySeries sweep) {
+        EnergySeries grid = sorted(sweep);
+        int size = grid.size();
+        boolean[] taken = new boolean[size];
+        List<Integer> sampled = new ArrayList<>();
+        for (int start : new int[]{0, size / 2, size - 1})
+            if (!taken[start]) {
+                taken[start] = true;
+                sampled.add(start);
+            }
+        while (true) {
+            Advice advice = advise(subset(grid, sampled));
+            int before = sampled.size();
+            for (double parameter : advice.getNextParameters()) {
+                int closest = -1;
+                for (int i = 0; i < size; i++)
+                    if (Math.abs(grid.parameterAt(i) - parameter) < 0.5 * resolution)
+                        closest = i;
+                if (closest >= 0 && !taken[closest]) {
+                    taken[closest] = true;
+                    sampled.add(closest);
+                }
+            }
+            if (sampled.size() == before)
+                return subset(grid, sampled);
+        }
+    }
+
+    private static EnergySeries subset(EnergySeries grid, List<Integer> indices) {
+        double[] parameters = new double[indices.size()];
+        double[] energies = new double[indices.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = grid.parameterAt(indices.get(i));
+            energies[i] = grid.energyAt(indices.get(i));
+        }
+        return new EnergySeries(parameters, energies);
+    }
+
+    public static void main(String[] args) {
+        SamplingAdvisor advisor = new SamplingAdvisor();
+        String[] codes = args.length > 0 ? args : new String[]{"0000", "0001", "0011", "1122"};
+        for (String code : codes) {
+            EnergySeries sweep = EtotParser.energySeries(code);
+            EnergySeries replayed = advisor.replay(sweep);
+            CurveFit fit = advisor.advise(replayed).getFit();
+            String optimum = fit == null ? "not bracketed" : String.format("%.4f ± %.5f Å",
+                    fit.getIdealParameter(), fit.getUncertainty());
+            System.out.println(code + ": grid minimum at " + sweep.getIdealParameter() + " Å, fitted " + optimum
+                    + ", " + replayed.size() + " of " + sweep.size() + " runs needed");
+        }
+    }
+
+}
@@ -0,0 +1,288 @@
+package energy;
+
+import basics.FastDoubleParser;
+import basics.TokenizedFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the final energy of VASP runs straight from their OSZICAR or OUTCAR, without the grep step that
+ * builds the Etot files. Files are memory-mapped in chunks split on line boundaries, and the chunks are
+ * matched from the end of the file, a batch at a time in parallel, so that only the tail of a big OUTCAR is
+ * usually read.
+ * <p>
+ * A sweep is a directory with one subdirectory per lattice parameter; the parameter of each run is the
+ * scaling factor on the second line of its CONTCAR, or of its POSCAR when there is no CONTCAR yet.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class VaspOutputScanner {
+
+    static final byte[] oszicarMark = "E0=".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] outcarMark = "energy(sigma->0) =".getBytes(StandardCharsets.US_ASCII);
+    private static final long defaultChunkSize = 1 << 24;
+    /**
+     * Chunks are mapped whole, so they must stay below 2 GB once aligned to the end of their last line.
+     */
+    static final long maxChunkSize = Integer.MAX_VALUE / 2;
+
+    private final int parallelism;
+    private final long chunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism the number of chunks matched at the same time, by a pool shared by every scan.
+     * @param chunkSize   the nominal size of a chunk (in bytes), before aligning it to a line boundary; it is
+     *                    capped at 1 GB.
+     */
+    public VaspOutputScanner(int parallelism, long chunkSize) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunks must have at least one byte: " + chunkSize);
+        this.parallelism = parallelism;
+        this.chunkSize = Math.min(chunkSize, maxChunkSize);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public VaspOutputScanner() {
+        this(Runtime.getRuntime().availableProcessors(), defaultChunkSize);
+    }
+
+    /**
+     * Matches a mark byte by byte, with the partial-match table of Knuth, Morris and Pratt, so that every
+     * byte of a chunk is looked at once.
+     */
+    private static final class Matcher {
+
+        private final byte[] mark;
+        private final int[] fallback;
+
+        Matcher(byte[] mark) {
+            this.mark = mark;
+            fallback = new int[mark.length];
+            for (int i = 1, state = 0; i < mark.length; i++) {
+                while (state > 0 && mark[i] != mark[state])
+                    state = fallback[state - 1];
+                if (mark[i] == mark[state])
+                    state++;
+                fallback[i] = state;
+            }
+        }
+
+        /**
+         * @return the position after the last match in the buffer, or -1 if there is none.
+         */
+        int lastMatchEnd(ByteBuffer buffer) {
+            int last = -1;
+            int state = 0;
+            for (int i = 0, limit = buffer.limit(); i < limit; i++) {
+                byte b = buffer.get(i);
+                while (state > 0 && b != mark[state])
+                    state = fallback[state - 1];
+                if (b == mark[state])
+                    state++;
+                if (state == mark.length) {
+                    last = i + 1;
+                    state = fallback[state - 1];
+                }
+            }
+            return last;
+        }
+
+    }
+
+    /**
+     * @param file an OSZICAR or OUTCAR (told apart by the file name).
+     * @return the energy of the last ionic step, E0 or the energy for sigma going to zero, or NaN if the run
+     * has not written any step yet.
+     * @throws IOException if the file could not be read.
+     */
+    public double finalEnergy(Path file) throws IOException {
+        boolean outcar = file.getFileName().toString().startsWith("OUTCAR");
+        Matcher matcher = new Matcher(outcar ? outcarMark : oszicarMark);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = lineAlignedBounds(channel, chunkSize);
+            int chunks = bounds.length - 1;
+            if (chunks == 1)
+                return lastValue(channel, matcher, bounds[0], bounds[1]);
+            try {
+                for (int high = chunks; high > 0; high -= parallelism) {
+                    List<Callable<Double>> batch = new ArrayList<>();
+                    for (int chunk = high - 1; chunk >= Math.max(0, high - parallelism); chunk--) {
+                        final long start = bounds[chunk], end = bounds[chunk + 1];
+                        batch.add(() -> lastValue(channel, matcher, start, end));
+                    }
+                    for (Future<Double> value : pool.invokeAll(batch))
+                        if (!Double.isNaN(value.get()))
+                            return value.get();
+                }
+                return Double.NaN;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Scan of " + file + " was interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Moves every nominal chunk boundary forward to the start of the next line.
+     *
+     * @return the start of every chunk, followed by the size of the file.
+     */
+    static long[] lineAlignedBounds(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long boundary = chunkSize;
+        while (boundary < size) {
+            long lineStart = -1;
+            long position = boundary;
+            while (lineStart < 0 && position < size) {
+                window.clear();
+                int read = channel.read(window, position);
+                for (int i = 0; i < read && lineStart < 0; i++)
+                    if (window.get(i) == '\n')
+                        lineStart = position + i + 1;
+                position += Math.max(read, 0);
+            }
+            if (lineStart < 0 || lineStart >= size)
+                break;
+            if (lineStart > bounds.get(bounds.size() - 1))
+                bounds.add(lineStart);
+            boundary = lineStart + chunkSize;
+        }
+        bounds.add(size);
+        long[] array = new long[bounds.size()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = bounds.get(i);
+        return array;
+    }
+
+    /**
+     * @throws IOException if a chunk is too big to be mapped, which only happens with a line longer than 1 GB.
+     */
+    static void checkMappable(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE)
+            throw new IOException("Line longer than " + maxChunkSize + " bytes after byte " + start);
+    }
+
+    private static double lastValue(FileChannel channel, Matcher matcher, long start, long end) throws IOException {
+        checkMappable(start, end);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int matchEnd = matcher.lastMatchEnd(buffer);
+        if (matchEnd < 0)
+            return Double.NaN;
+        int limit = buffer.limit();
+        int from = matchEnd;
+        while (from < limit && (buffer.get(from) == ' ' || buffer.get(from) == '\t'))
+            from++;
+        int to = from;
+        while (to < limit && buffer.get(to) > ' ')
+            to++;
+        return to > from ? FastDoubleParser.parse(buffer, from, to) : Double.NaN;
+    }
+
+    /**
+     * @param run the directory of a run.
+     * @return the scaling factor of its CONTCAR, or of its POSCAR if the CONTCAR is missing or empty.
+     * @throws IOException if neither could be read.
+     */
+    public static String latticeParameter(Path run) throws IOException {
+        Path geometry = run.resolve("CONTCAR");
+        if (!Files.isRegularFile(geometry) || Files.size(geometry) == 0)
+            geometry = run.resolve("POSCAR");
+        return TokenizedFile.of(geometry).textAt(1, 0);
+    }
+
+    /**
+     * @param run the directory of a run.
+     * @return its final energy, from the OSZICAR if there is one and from the OUTCAR otherwise.
+     * @throws IOException if neither could be read.
+     */
+    public double finalEnergyOf(Path run) throws IOException {
+        Path oszicar = run.resolve("OSZICAR");
+        return finalEnergy(Files.isRegularFile(oszicar) ? oszicar : run.resolve("OUTCAR"));
+    }
+
+    /**
+     * Builds the energy curve of a sweep, skipping the runs that have no energy yet. Runs are sorted by
+     * lattice parameter.
+     *
+     * @param sweep the directory of the sweep.
+     * @return the energy curve of the sweep.
+     * @throws IOException if a run could not be read.
+     */
+    public EtotCurve curve(Path sweep) throws IOException {
+        File[] runs = sweep.toFile().listFiles(File::isDirectory);
+        if (runs == null)
+            throw new IOException("Not a directory: " + sweep);
+        List<String> found = new ArrayList<>();
+        List<Double> foundEnergies = new ArrayList<>();
+        for (File run : runs) {
+            double energy = finalEnergyOf(run.toPath());
+            if (!Double.isNaN(energy)) {
+                found.add(latticeParameter(run.toPath()));
+                foundEnergies.add(energy);
+            }
+        }
+        Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (first, second) ->
+                Double.compare(Double.parseDouble(found.get(first)), Double.parseDouble(found.get(second))));
+        String[] parameters = new String[order.length];
+        double[] energies = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            parameters[i] = found.get(order[i]);
+            energies[i] = foundEnergies.get(order[i]);
+        }
+        return new EtotCurve(parameters, energies);
+    }
+
+    public static void main(String[] args) throws IOException {
+        VaspOutputScanner scanner = new VaspOutputScanner();
+        for (String argument : args) {
+            Path path = Paths.get(argument);
+            if (Files.isDirectory(path)) {
+                EtotCurve curve = scanner.curve(path);
+                for (int i = 0; i < curve.size(); i++)
+                    System.out.println(curve.parameterAt(i) + " " + curve.energyAt(i));
+            } else {
+                System.out.println(path + ": " + scanner.finalEnergy(path));
+            }
+        }
+    }
+
+}
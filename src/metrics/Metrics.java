@@ -0,0 +1,209 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and counters of a report run: the time spent in each stage of the pipeline, the bytes read, the
+ * tokens parsed, the cells rendered and the hits of the caches. Everything is off unless the system property
+ * <em>graphane.metrics</em> names the file the summary is exported to, as Prometheus text when it ends in
+ * <em>.prom</em> and as JSON otherwise; when off, each call is a single read of a volatile flag.
+ * <p>
+ * Stages nest: the time of the report includes the time of the sections, which includes parsing. Each
+ * measured stage is also committed as a {@link StageEvent} to Java Flight Recorder, when it is recording.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Metrics {
+
+    public enum Stage {
+        PARSE("parse"), ETOT("etot"), GEOMETRY("geometry"), SECTION("section"), REPORT("report");
+
+        private final String label;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Counter {
+        BYTES_READ("bytes_read", "bytesRead"),
+        TOKENS_PARSED("tokens_parsed", "tokensParsed"),
+        CELLS("cells", "cells"),
+        CURVE_CACHE_HITS("curve_cache_hits", "curveCacheHits"),
+        CURVE_CACHE_MISSES("curve_cache_misses", "curveCacheMisses"),
+        INDEX_HITS("index_hits", "indexHits"),
+        INDEX_MISSES("index_misses", "indexMisses");
+
+        private final String prometheusName;
+        private final String jsonName;
+        private final LongAdder value = new LongAdder();
+
+        Counter(String prometheusName, String jsonName) {
+            this.prometheusName = prometheusName;
+            this.jsonName = jsonName;
+        }
+    }
+
+    private static final String property = "graphane.metrics";
+
+    private static volatile boolean enabled = System.getProperty(property) != null;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the metrics on or off for the whole process. It is meant to be called before a run starts.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return the start time of a stage, or zero when the metrics are off.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * @param stage the stage that ends.
+     * @param start the value returned by {@link #start()} when it began.
+     */
+    public static void stop(Stage stage, long start) {
+        if (!enabled)
+            return;
+        long elapsed = System.nanoTime() - start;
+        stage.calls.increment();
+        stage.nanos.add(elapsed);
+        StageEvent event = new StageEvent();
+        if (event.isEnabled()) {
+            event.stage = stage.label;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    public static void add(Counter counter, long amount) {
+        if (enabled)
+            counter.value.add(amount);
+    }
+
+    public static void increment(Counter counter) {
+        if (enabled)
+            counter.value.increment();
+    }
+
+    public static long valueOf(Counter counter) {
+        return counter.value.sum();
+    }
+
+    public static long callsOf(Stage stage) {
+        return stage.calls.sum();
+    }
+
+    public static double secondsOf(Stage stage) {
+        return stage.nanos.sum() / 1e9;
+    }
+
+    public static void reset() {
+        for (Stage stage : Stage.values()) {
+            stage.calls.reset();
+            stage.nanos.reset();
+        }
+        for (Counter counter : Counter.values())
+            counter.value.reset();
+    }
+
+    /**
+     * @return the fraction of lookups that were hits, or NaN if there was no lookup.
+     */
+    private static double hitRate(Counter hits, Counter misses) {
+        double total = valueOf(hits) + valueOf(misses);
+        return total == 0 ? Double.NaN : valueOf(hits) / total;
+    }
+
+    private static double cellsPerSecond() {
+        double seconds = secondsOf(Stage.REPORT);
+        return seconds == 0 ? Double.NaN : valueOf(Counter.CELLS) / seconds;
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "NaN" : String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String jsonNumber(double value) {
+        return Double.isNaN(value) ? "null" : number(value);
+    }
+
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"stages\": {");
+        Stage[] stages = Stage.values();
+        for (int i = 0; i < stages.length; i++)
+            json.append(i == 0 ? "\n" : ",\n").append("    \"").append(stages[i].label).append("\": {\"calls\": ")
+                    .append(callsOf(stages[i])).append(", \"seconds\": ").append(number(secondsOf(stages[i])))
+                    .append("}");
+        json.append("\n  },\n  \"counters\": {");
+        Counter[] counters = Counter.values();
+        for (int i = 0; i < counters.length; i++)
+            json.append(i == 0 ? "\n" : ",\n").append("    \"").append(counters[i].jsonName).append("\": ")
+                    .append(valueOf(counters[i]));
+        json.append("\n  },\n  \"cellsPerSecond\": ").append(jsonNumber(cellsPerSecond()));
+        json.append(",\n  \"curveCacheHitRate\": ")
+                .append(jsonNumber(hitRate(Counter.CURVE_CACHE_HITS, Counter.CURVE_CACHE_MISSES)));
+        json.append(",\n  \"indexHitRate\": ").append(jsonNumber(hitRate(Counter.INDEX_HITS, Counter.INDEX_MISSES)));
+        return json.append("\n}\n").toString();
+    }
+
+    public static String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP graphane_stage_seconds_total Time spent in each stage of the report.\n");
+        text.append("# TYPE graphane_stage_seconds_total counter\n");
+        for (Stage stage : Stage.values())
+            text.append("graphane_stage_seconds_total{stage=\"").append(stage.label).append("\"} ")
+                    .append(number(secondsOf(stage))).append("\n");
+        text.append("# HELP graphane_stage_calls_total Number of times each stage ran.\n");
+        text.append("# TYPE graphane_stage_calls_total counter\n");
+        for (Stage stage : Stage.values())
+            text.append("graphane_stage_calls_total{stage=\"").append(stage.label).append("\"} ")
+                    .append(callsOf(stage)).append("\n");
+        for (Counter counter : Counter.values()) {
+            text.append("# TYPE graphane_").append(counter.prometheusName).append("_total counter\n");
+            text.append("graphane_").append(counter.prometheusName).append("_total ").append(valueOf(counter))
+                    .append("\n");
+        }
+        text.append("# TYPE graphane_cells_per_second gauge\n");
+        text.append("graphane_cells_per_second ").append(number(cellsPerSecond())).append("\n");
+        return text.toString();
+    }
+
+    /**
+     * Writes the summary to the file named by the <em>graphane.metrics</em> property, if the metrics are on
+     * and the property is set.
+     *
+     * @throws IOException if the summary could not be written.
+     */
+    public static void export() throws IOException {
+        String target = System.getProperty(property);
+        if (enabled && target != null)
+            export(Paths.get(target));
+    }
+
+    public static void export(Path target) throws IOException {
+        String summary = target.getFileName().toString().endsWith(".prom") ? toPrometheus() : toJson();
+        Files.write(target, summary.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,29 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one measured stage of the pipeline. The jdk.jfr API is why the build targets Java 11.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+@Name("graphane.Stage")
+@Label("Pipeline Stage")
+@Category("Graphane")
+@StackTrace(false)
+class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Elapsed")
+    @Timespan
+    long elapsed;
+
+}
@@ -0,0 +1,241 @@
+package report;
+
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Streams report text into a channel through a fixed buffer. Numbers are appended to a reused builder and
+ * copied from there, and whole files are copied with {@link FileChannel#transferTo}, so that rendering a
+ * section does not build any String. Text is encoded with the default charset, just like a FileWriter.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+final class ReportRenderer {
+
+    private static final int bufferSize = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+    private final StringBuilder digits = new StringBuilder(32);
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final char decimalSeparator;
+    private String lastEncodedText;
+    private byte[] lastEncodedBytes;
+    private final boolean latinDigits;
+
+    /**
+     * @param channel the channel the report goes to.
+     */
+    ReportRenderer(WritableByteChannel channel) {
+        this.channel = channel;
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        decimalSeparator = symbols.getDecimalSeparator();
+        latinDigits = symbols.getZeroDigit() == '0';
+    }
+
+    ReportRenderer text(CharSequence text) throws IOException {
+        return text(text, 0, text.length());
+    }
+
+    private ReportRenderer text(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (!buffer.hasRemaining())
+                    drain();
+                buffer.put((byte) c);
+            } else {
+                int next = i + 1;
+                while (next < end && text.charAt(next) >= 0x80) next++;
+                encoded(text.subSequence(i, next));
+                i = next - 1;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Encodes a run of non-ASCII characters. The last run is remembered, since the same few symbols (such as
+     * the one of angstroms) come up again and again.
+     */
+    private void encoded(CharSequence text) throws IOException {
+        if (lastEncodedText == null || !lastEncodedText.contentEquals(text)) {
+            ByteBuffer bytes = encoder.encode(CharBuffer.wrap(text));
+            lastEncodedText = text.toString();
+            lastEncodedBytes = new byte[bytes.remaining()];
+            bytes.get(lastEncodedBytes);
+        }
+        for (byte b : lastEncodedBytes) {
+            if (!buffer.hasRemaining())
+                drain();
+            buffer.put(b);
+        }
+    }
+
+    /**
+     * Writes bytes that were already encoded, such as a section rendered somewhere else.
+     */
+    ReportRenderer bytes(byte[] bytes) throws IOException {
+        drain();
+        ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+        while (wrapped.hasRemaining())
+            channel.write(wrapped);
+        return this;
+    }
+
+    /**
+     * Writes a number the same way as {@link Double#toString(double)}.
+     */
+    ReportRenderer number(double value) throws IOException {
+        digits.setLength(0);
+        digits.append(value);
+        return text(digits);
+    }
+
+    ReportRenderer integer(long value) throws IOException {
+        digits.setLength(0);
+        digits.append(value);
+        return text(digits);
+    }
+
+    /**
+     * Writes a number with a fixed number of decimals, the same way as {@code String.format("%.3f", value)} for
+     * a precision of 3: the shortest decimal digits of the value are rounded half up.
+     */
+    ReportRenderer fixed(double value, int precision) throws IOException {
+        digits.setLength(0);
+        digits.append(value);
+        int point = digits.indexOf(".");
+        if (!latinDigits || point < 0 || digits.indexOf("E") >= 0)
+            return text(String.format("%." + precision + "f", value));
+        int first = digits.charAt(0) == '-' ? 1 : 0;
+        int cut = point + 1 + precision;
+        if (cut < digits.length() && digits.charAt(cut) >= '5') {
+            int i = cut - 1;
+            for (; i >= first; i--) {
+                char c = digits.charAt(i);
+                if (c == '.')
+                    continue;
+                if (c < '9') {
+                    digits.setCharAt(i, (char) (c + 1));
+                    break;
+                }
+                digits.setCharAt(i, '0');
+            }
+            if (i < first) {
+                digits.insert(first, '1');
+                point++;
+                cut++;
+            }
+        }
+        if (cut < digits.length())
+            digits.setLength(cut);
+        while (digits.length() < cut)
+            digits.append('0');
+        if (precision == 0)
+            digits.setLength(point);
+        else
+            digits.setCharAt(point, decimalSeparator);
+        return text(digits);
+    }
+
+    /**
+     * Copies a whole file.
+     *
+     * @param path the file path.
+     * @throws IOException if the file could not be read.
+     */
+    ReportRenderer file(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            drain();
+            long length = file.size();
+            for (long position = 0; position < length; )
+                position += file.transferTo(position, length - position, channel);
+        }
+        return this;
+    }
+
+    /**
+     * Copies a whole file, without its final line terminator (if any).
+     *
+     * @param path the file path.
+     * @throws IOException if the file could not be read.
+     */
+    ReportRenderer fileWithoutLastLineTerminator(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            long length = size - lineTerminatorLength(file, size);
+            Metrics.add(Metrics.Counter.BYTES_READ, size);
+            drain();
+            for (long position = 0; position < length; )
+                position += file.transferTo(position, length - position, channel);
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes that are already in memory, without their final line terminator (if any).
+     *
+     * @param bytes the bytes, from their position to their limit.
+     */
+    ReportRenderer bytesWithoutLastLineTerminator(ByteBuffer bytes) throws IOException {
+        ByteBuffer content = bytes.duplicate();
+        int size = content.remaining();
+        ByteBuffer tail = content.duplicate();
+        tail.position(content.position() + size - Math.min(3, size));
+        content.limit(content.limit() - lineTerminatorLength(tail.slice()));
+        drain();
+        while (content.hasRemaining())
+            channel.write(content);
+        return this;
+    }
+
+    private static long lineTerminatorLength(FileChannel file, long size) throws IOException {
+        ByteBuffer tail = ByteBuffer.allocate((int) Math.min(3, size));
+        file.read(tail, size - tail.capacity());
+        return lineTerminatorLength(tail);
+    }
+
+    /**
+     * @param tail the last (up to three) bytes of a file, from position zero to the capacity.
+     */
+    private static int lineTerminatorLength(ByteBuffer tail) {
+        int n = tail.capacity();
+        byte last = n > 0 ? tail.get(n - 1) : 0;
+        if (last == '\n')
+            return n > 1 && tail.get(n - 2) == '\r' ? 2 : 1;
+        if (last == '\r')
+            return 1;
+        if (n > 1 && (tail.get(n - 2) & 0xFF) == 0xC2 && (last & 0xFF) == 0x85)
+            return 2;
+        if (n > 2 && (tail.get(n - 3) & 0xFF) == 0xE2 && (tail.get(n - 2) & 0xFF) == 0x80
+                && ((last & 0xFF) == 0xA8 || (last & 0xFF) == 0xA9))
+            return 3;
+        return 0;
+    }
+
+    /**
+     * Writes everything buffered so far to the channel.
+     */
+    void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+}
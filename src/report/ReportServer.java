@@ -0,0 +1,285 @@
+package report;
+
+import basics.BasicParser;
+import bounds.Cell;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import energy.EtotParser;
+import statistics.Ranking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the report warm in a long-running process and serves it over HTTP on the loopback interface, so
+ * that scripts asking for one cell at a time do not pay for a new JVM and a full parse each time. The rendered
+ * header and cell sections are kept in memory and rendered again only when one of their files changes.
+ * <ul>
+ * <li><em>GET /section?code=1122</em> answers the section of a cell;</li>
+ * <li><em>GET /ideal?code=0011</em> answers the ideal lattice parameter of a cell;</li>
+ * <li><em>GET /report</em> answers the whole report, byte for byte the same as the output file.</li>
+ * </ul>
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ReportServer {
+
+    static final int defaultPort = 8765;
+
+    /**
+     * Rendered bytes, with the modification times of the files they were rendered from and, for a section,
+     * the smallest energy of its cell.
+     */
+    private static final class Rendered {
+
+        private final long[] stamps;
+        private final byte[] bytes;
+        private final double smallestEnergy;
+
+        Rendered(long[] stamps, byte[] bytes, double smallestEnergy) {
+            this.stamps = stamps;
+            this.bytes = bytes;
+            this.smallestEnergy = smallestEnergy;
+        }
+
+    }
+
+    /**
+     * A writer with the cell indices and the modification time of the input file it was read from. A request
+     * uses the same snapshot from start to end, even if the input file is read again meanwhile.
+     */
+    private static final class Snapshot {
+
+        private final ReportWriter writer;
+        private final Map<String, Integer> indexOf;
+        private final long inputStamp;
+
+        Snapshot(ReportWriter writer, Map<String, Integer> indexOf, long inputStamp) {
+            this.writer = writer;
+            this.indexOf = indexOf;
+            this.inputStamp = inputStamp;
+        }
+
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Rendered> sections = new ConcurrentHashMap<>();
+    private volatile Rendered header;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param port    the port to listen on (0 picks a free one).
+     * @param threads the number of requests handled at the same time.
+     * @throws IOException if the port could not be bound.
+     */
+    public ReportServer(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/section", exchange -> handle(exchange, true));
+        server.createContext("/ideal", exchange -> handle(exchange, false));
+        server.createContext("/report", this::handleReport);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Reads the input file again if it changed, with a new writer, so that requests being answered keep the
+     * codes and degeneracies they started with.
+     *
+     * @return the snapshot of the current input file.
+     */
+    private synchronized Snapshot currentSnapshot() {
+        long stamp = stampOf(BasicParser.resourcePath(ReportWriter.ioPath + ReportWriter.inputFileName));
+        Snapshot current = snapshot;
+        if (current == null || stamp != current.inputStamp) {
+            ReportWriter fresh = new ReportWriter();
+            fresh.readInput();
+            Map<String, Integer> indices = new HashMap<>();
+            List<String> cellCodes = fresh.getCellCodes();
+            for (int i = 0; i < cellCodes.size(); i++)
+                indices.put(cellCodes.get(i), i);
+            sections.clear();
+            current = new Snapshot(fresh, Collections.unmodifiableMap(indices), stamp);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private static long stampOf(String filePath) {
+        return BasicParser.lastModified(filePath);
+    }
+
+    private static boolean isFresh(Rendered rendered, long[] stamps) {
+        if (rendered == null || rendered.stamps.length != stamps.length)
+            return false;
+        for (int i = 0; i < stamps.length; i++)
+            if (rendered.stamps[i] != stamps[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the header, which holds the stability ranking: it is rendered again when KPOINTS, INCAR, the
+     * input file or the Etot file of any cell changes, out of the smallest energies of the cell sections, which
+     * are rendered first if they are not fresh.
+     */
+    byte[] header() throws IOException {
+        return header(currentSnapshot());
+    }
+
+    private byte[] header(Snapshot current) throws IOException {
+        List<String> cellCodes = current.writer.getCellCodes();
+        long[] stamps = new long[cellCodes.size() + 4];
+        stamps[0] = stampOf(BasicParser.resourcePath(ReportWriter.ioPath + "KPOINTS"));
+        stamps[1] = stampOf(BasicParser.resourcePath(ReportWriter.ioPath + "INCAR"));
+        stamps[2] = current.inputStamp;
+        stamps[3] = stampOf(EtotParser.filePathFor(ReportWriter.referenceCode));
+        for (int i = 0; i < cellCodes.size(); i++)
+            stamps[4 + i] = stampOf(EtotParser.filePathFor(cellCodes.get(i)));
+        Rendered cached = header;
+        if (!isFresh(cached, stamps)) {
+            Ranking ranking = current.writer.emptyRanking();
+            for (int i = 0; i < cellCodes.size(); i++)
+                current.writer.rank(ranking, i, renderedSection(current, cellCodes.get(i)).smallestEnergy);
+            cached = new Rendered(stamps, current.writer.header(ranking), Double.NaN);
+            header = cached;
+        }
+        return cached.bytes;
+    }
+
+    /**
+     * @return the section of a cell, or null if the cell is not in the input file. A section is rendered again
+     * when its POSCAR or Etot file changes, or when the input file does, since it holds the degeneracy.
+     */
+    byte[] section(String cellCode) throws IOException {
+        return section(currentSnapshot(), cellCode);
+    }
+
+    private byte[] section(Snapshot current, String cellCode) throws IOException {
+        Rendered rendered = renderedSection(current, cellCode);
+        return rendered == null ? null : rendered.bytes;
+    }
+
+    private Rendered renderedSection(Snapshot current, String cellCode) throws IOException {
+        Integer index = current.indexOf.get(cellCode);
+        if (index == null)
+            return null;
+        long[] stamps = {current.inputStamp, stampOf(Cell.filePathFor(cellCode)),
+                stampOf(EtotParser.filePathFor(cellCode))};
+        Rendered cached = sections.get(cellCode);
+        if (!isFresh(cached, stamps)) {
+            ReportWriter.Section section = current.writer.section(cellCode, index);
+            cached = new Rendered(stamps, section.getBytes(), section.getSmallestEnergy());
+            sections.put(cellCode, cached);
+        }
+        return cached;
+    }
+
+    byte[] report() throws IOException {
+        Snapshot current = currentSnapshot();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(header(current));
+        for (String cellCode : current.writer.getCellCodes())
+            bytes.write(section(current, cellCode));
+        return bytes.toByteArray();
+    }
+
+    private void handle(HttpExchange exchange, boolean wholeSection) throws IOException {
+        if (!allowed(exchange))
+            return;
+        String cellCode = parameter(exchange, "code");
+        if (cellCode == null) {
+            respond(exchange, 400, "Missing parameter: code\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        try {
+            byte[] section = section(cellCode);
+            if (section == null)
+                respond(exchange, 404, ("Unknown cell: " + cellCode + "\n").getBytes(StandardCharsets.UTF_8));
+            else if (wholeSection)
+                respond(exchange, 200, section);
+            else
+                respond(exchange, 200, (EtotParser.idealParameterFor(cellCode) + "\n").getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | RuntimeException e) {
+            respond(exchange, 500, (e + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handleReport(HttpExchange exchange) throws IOException {
+        if (!allowed(exchange))
+            return;
+        try {
+            respond(exchange, 200, report());
+        } catch (IOException | RuntimeException e) {
+            respond(exchange, 500, (e + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean allowed(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod()))
+            return true;
+        exchange.getResponseHeaders().set("Allow", "GET");
+        respond(exchange, 405, "Only GET is supported\n".getBytes(StandardCharsets.US_ASCII));
+        return false;
+    }
+
+    private static String parameter(HttpExchange exchange, String name) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null)
+            return null;
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name))
+                return URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=" + Charset.defaultCharset().name());
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Serves the report until the process is stopped. The optional arguments are the port and the number of
+     * requests handled at the same time.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : defaultPort;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ReportServer server = new ReportServer(port, threads);
+        server.start();
+        System.out.println("Serving the report on http://localhost:" + server.getPort() + "/");
+    }
+
+}
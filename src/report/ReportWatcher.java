@@ -0,0 +1,231 @@
+package report;
+
+import basics.BasicParser;
+import statistics.Ranking;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps the report up to date while simulations finish. The rendered section of each cell is kept in memory,
+ * and when input files change only the sections that depend on them are rendered again before the output
+ * file is atomically replaced. The header, which holds the stability ranking, is rendered again whenever a
+ * section is, out of the smallest energies the sections were rendered with. A section that cannot be
+ * rendered, such as one of a file still being written, keeps its previous content (or a placeholder) and is
+ * tried again on every following refresh.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ReportWatcher {
+
+    private static final String poscarPath = "poscar";
+    private static final String etotPath = "etot/results";
+    private static final String poscarPrefix = "POSCAR";
+    private static final String etotExtension = ".dat";
+    private static final long quietPeriod = 200;
+
+    private final ReportWriter writer;
+    private final Map<String, byte[]> sections = new HashMap<>();
+    private final Map<String, Double> smallestEnergies = new HashMap<>();
+    private final Map<String, String> degeneracies = new HashMap<>();
+    private final Set<String> changedCells = new HashSet<>();
+    private final Set<String> failedCells = new HashSet<>();
+    private boolean inputChanged, eventsLost, headerFailed;
+    private byte[] header;
+
+    public ReportWatcher() {
+        this(new ReportWriter());
+    }
+
+    public ReportWatcher(ReportWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the whole report once, then keeps refreshing it until the thread is interrupted.
+     *
+     * @throws IOException if the directories could not be watched or the report could not be written.
+     */
+    public void watch() throws IOException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Map<WatchKey, Path> directories = new HashMap<>();
+            for (String directory : new String[]{poscarPath, etotPath, ReportWriter.ioPath}) {
+                Path path = Paths.get(BasicParser.resourcePath(directory));
+                directories.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+            }
+            refreshAll();
+            while (!Thread.currentThread().isInterrupted()) {
+                changedCells.clear();
+                inputChanged = false;
+                eventsLost = false;
+                WatchKey key = watchService.take();
+                do {
+                    collect(key, directories.get(key));
+                    key.reset();
+                    key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                try {
+                    if (eventsLost)
+                        refreshAll();
+                    else if (inputChanged || !changedCells.isEmpty() || !failedCells.isEmpty() || headerFailed)
+                        refresh(inputChanged, changedCells);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Finds which cells, if any, a batch of events of a directory touches.
+     */
+    private void collect(WatchKey key, Path directory) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                eventsLost = true;
+                continue;
+            }
+            String fileName = event.context().toString();
+            if (directory.equals(Paths.get(BasicParser.resourcePath(poscarPath))) && fileName.startsWith(poscarPrefix))
+                changedCells.add(fileName.substring(poscarPrefix.length()));
+            else if (directory.equals(Paths.get(BasicParser.resourcePath(etotPath))) && fileName.endsWith(etotExtension))
+                changedCells.add(fileName.substring(0, fileName.length() - etotExtension.length()));
+            else if (fileName.equals(ReportWriter.inputFileName) || fileName.equals("KPOINTS") || fileName.equals("INCAR"))
+                inputChanged = true;
+        }
+    }
+
+    /**
+     * Renders every section again.
+     *
+     * @throws IOException if the report could not be written.
+     */
+    public void refreshAll() throws IOException {
+        sections.clear();
+        smallestEnergies.clear();
+        degeneracies.clear();
+        failedCells.clear();
+        refresh(true, new HashSet<String>());
+    }
+
+    /**
+     * Renders the new or changed sections and the header, then writes the report.
+     *
+     * @param inputChanged whether the input list or the common parameters may have changed.
+     * @param changedCells the codes of the cells whose files changed.
+     * @throws IOException if the report could not be written.
+     */
+    private void refresh(boolean inputChanged, Set<String> changedCells) throws IOException {
+        if (inputChanged || header == null)
+            writer.readInput();
+        List<String> cellCodes = writer.getCellCodes();
+        List<String> cellDegeneracies = writer.getDegeneracies();
+        int rendered = 0;
+        for (int i = 0; i < cellCodes.size(); i++) {
+            String cellCode = cellCodes.get(i);
+            String degeneracy = cellDegeneracies.get(i);
+            if (!sections.containsKey(cellCode) || changedCells.contains(cellCode) || failedCells.contains(cellCode)
+                    || !degeneracy.equals(degeneracies.get(cellCode))) {
+                renderSection(cellCode, i);
+                degeneracies.put(cellCode, degeneracy);
+                rendered++;
+            }
+        }
+        sections.keySet().retainAll(cellCodes);
+        smallestEnergies.keySet().retainAll(cellCodes);
+        degeneracies.keySet().retainAll(cellCodes);
+        failedCells.retainAll(cellCodes);
+        boolean headerChanged = false;
+        if (inputChanged || header == null || headerFailed || rendered > 0
+                || changedCells.contains(ReportWriter.referenceCode))
+            headerChanged = renderHeader(cellCodes);
+        if (rendered > 0 || headerChanged)
+            writeAtomically(cellCodes);
+    }
+
+    /**
+     * Ranks the cells whose sections were rendered, with the smallest energies of their sections.
+     *
+     * @return whether the header was rendered; if not, the previous one (or a placeholder) is kept.
+     */
+    private boolean renderHeader(List<String> cellCodes) {
+        try {
+            Ranking ranking = writer.emptyRanking();
+            for (int i = 0; i < cellCodes.size(); i++) {
+                Double smallestEnergy = smallestEnergies.get(cellCodes.get(i));
+                if (smallestEnergy != null)
+                    writer.rank(ranking, i, smallestEnergy);
+            }
+            header = writer.header(ranking);
+            headerFailed = false;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            if (header == null)
+                header = "Common parameters could not be read\n\n".getBytes(Charset.defaultCharset());
+            headerFailed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Renders the section of a cell, keeping its previous section (or a placeholder) if it fails.
+     */
+    private void renderSection(String cellCode, int index) {
+        try {
+            ReportWriter.Section section = writer.section(cellCode, index);
+            sections.put(cellCode, section.getBytes());
+            smallestEnergies.put(cellCode, section.getSmallestEnergy());
+            failedCells.remove(cellCode);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            if (!sections.containsKey(cellCode))
+                sections.put(cellCode, ("#########\nCell " + cellCode + "\n#########\n\n"
+                        + "Results could not be read yet\n\n").getBytes(Charset.defaultCharset()));
+            failedCells.add(cellCode);
+        }
+    }
+
+    private void writeAtomically(List<String> cellCodes) throws IOException {
+        File outputFile = new File(BasicParser.resourcePath(ReportWriter.ioPath + ReportWriter.outputFileName));
+        File temporaryFile = new File(BasicParser.resourcePath(ReportWriter.ioPath + "." + ReportWriter.outputFileName + ".tmp"));
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temporaryFile))) {
+            out.write(header);
+            for (String cellCode : cellCodes)
+                out.write(sections.get(cellCode));
+        }
+        Files.move(temporaryFile.toPath(), outputFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new ReportWatcher().watch();
+    }
+
+}
@@ -1,14 +1,34 @@
 package report;
 
+import basics.BasicParser;
 import bounds.Cell;
+import bounds.GeometryCache;
+import bounds.PoscarFile;
+import energy.EtotCurve;
 import energy.EtotParser;
+import metrics.Metrics;
+import statistics.Composition;
+import statistics.Ranking;
+import statistics.WeightedStatistics;
+import store.CellRecord;
+import store.ResultIndex;
 
 import java.io.*;
-import java.text.DecimalFormat;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Writes a thorough report for each converged cell.
@@ -18,20 +38,103 @@ import java.util.Scanner;
  */
 public class ReportWriter {
 
+    static final String ioPath = "io/";
+    static final String inputFileName = "current_entry.txt";
+    static final String outputFileName = "output.txt";
+    static final String referenceCode = "0000";
+
     private List<String> allCellCodes, allDegeneracies;
+    private int parallelism = 1;
+    private int rankingSize = 10;
+    private ResultIndex resultIndex;
+    private GeometryCache geometryCache;
+
+    public ReportWriter() {
+    }
+
+    /**
+     * Creates a report writer that builds the cell sections concurrently.
+     *
+     * @param parallelism the number of cell sections built at the same time (1 means sequential).
+     */
+    public ReportWriter(int parallelism) {
+        setParallelism(parallelism);
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param rankingSize how many cells are listed at each end of the stability ranking.
+     */
+    public void setRankingSize(int rankingSize) {
+        if (rankingSize < 1)
+            throw new IllegalArgumentException("Ranking size must be at least 1: " + rankingSize);
+        this.rankingSize = rankingSize;
+    }
+
+    public int getRankingSize() {
+        return rankingSize;
+    }
+
+    /**
+     * Makes the report load the parsed results of each cell from a binary index instead of the text files.
+     *
+     * @param index the index, or null to always parse the text files.
+     */
+    public void setIndex(ResultIndex index) {
+        this.resultIndex = index;
+    }
+
+    /**
+     * Makes the report analyze each distinct structure only once, and point out the cells whose structure
+     * matches the one of a cell before them in the input file. Cells are fingerprinted in input order as their
+     * sections are scheduled, so the same cells are pointed out whatever the parallelism. It has no effect on
+     * cells loaded from a binary index.
+     *
+     * @param cache the cache of analyzed structures, or null to analyze every cell.
+     */
+    public void setGeometryCache(GeometryCache cache) {
+        this.geometryCache = cache;
+    }
 
     public void run() {
+        long start = Metrics.start();
         readInput();
         writeOutput();
+        if (resultIndex != null) {
+            try {
+                resultIndex.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            BasicParser.closeArchive(BasicParser.resourceRoot());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        Metrics.stop(Metrics.Stage.REPORT, start);
+        try {
+            Metrics.export();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     public void readInput() {
         allCellCodes = new ArrayList<>();
         allDegeneracies = new ArrayList<>();
-        String inputFilePath = "res/io/current_entry.txt";
-        File inputFile = new File(inputFilePath);
-        try {
-            Scanner sc = new Scanner(inputFile);
+        String inputFilePath = BasicParser.resourcePath(ioPath + inputFileName);
+        try (InputStream in = BasicParser.inputStream(inputFilePath)) {
+            Scanner sc = new Scanner(in);
             while (sc.hasNextLine()) {
                 String line = sc.nextLine();
                 if (!line.trim().isEmpty()) {
@@ -40,146 +143,414 @@ public class ReportWriter {
                     allDegeneracies.add(splitLine[1]);
                 }
             }
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * @return the path of the output file: in the <em>io</em> directory, or next to an archived resource root,
+     * named after the archive, since the archive itself is never written to.
+     */
+    static Path outputPath() {
+        String root = BasicParser.resourceRoot();
+        if (!BasicParser.isArchive(root))
+            return Paths.get(BasicParser.resourcePath(ioPath + outputFileName));
+        String archiveName = root.replaceFirst("(\\.tar\\.gz|\\.tgz|\\.zip)$", "");
+        return Paths.get(archiveName + "-" + outputFileName);
+    }
+
+    /**
+     * Writes the cell sections to a temporary file next to the output file, ranking the cells as their
+     * sections go by, then writes the header with the ranking and copies the sections after it.
+     */
     private void writeOutput() {
-        String outputFilePath = "res/io/output.txt";
-        File outputFile = new File(outputFilePath);
+        Path outputFile = outputPath();
+        Path sectionsFile = null;
         try {
-            FileWriter fw = new FileWriter(outputFile);
-            BufferedWriter bw = new BufferedWriter(fw);
-            writeContent(bw);
-            bw.close();
-
+            sectionsFile = Files.createTempFile(outputFile.toAbsolutePath().getParent(), "." + outputFileName,
+                    ".sections");
+            Ranking ranking = emptyRanking();
+            try (FileChannel channel = FileChannel.open(sectionsFile, StandardOpenOption.WRITE)) {
+                ReportRenderer out = new ReportRenderer(channel);
+                writeSections(out, ranking);
+                out.drain();
+            }
+            try (FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ReportRenderer out = new ReportRenderer(channel);
+                writeHeader(out, ranking);
+                out.file(sectionsFile);
+            }
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            if (sectionsFile != null) {
+                try {
+                    Files.deleteIfExists(sectionsFile);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
+    }
 
+    private void writeSections(ReportRenderer out, Ranking ranking) throws IOException {
+        if (parallelism == 1)
+            for (int i = 0; i < allCellCodes.size(); i++) {
+                String cellCode = allCellCodes.get(i);
+                PoscarFile poscar = deduplicating() ? PoscarFile.of(Cell.filePathFor(cellCode)) : null;
+                GeometryCache.Entry geometry = poscar != null ? geometryCache.get(cellCode, poscar) : null;
+                rank(ranking, i, writeContentForCell(out, cellCode, i, poscar, geometry));
+            }
+        else
+            writeSectionsInParallel(out, ranking);
     }
 
-    private void writeContent(BufferedWriter bw) throws IOException {
-        bw.write("=============================================\n");
-        bw.write("Results for the convergence of graphane cells\n");
-        bw.write("=============================================\n\n");
-        bw.write(commonParameters());
-        bw.write("=================================\n");
-        bw.write("2. Detailed results for each cell\n");
-        bw.write("=================================\n\n");
-        for (int i = 0; i < allCellCodes.size(); i++)
-            writeContentForCell(bw, allCellCodes.get(i), i);
-    }
-
-    private String commonParameters() throws IOException {
-        String common = "==================================\n";
-        common += "1. Common parameters for all cells\n";
-        common += "==================================\n\n";
-        common += "===========\n1.1 KPOINTS\n===========\n\n";
-        common += allLinesFrom("KPOINTS") + "\n\n";
-        common += "=========\n1.2 INCAR\n=========\n\n";
-        common += allLinesFrom("INCAR") + "\n\n";
-        return common;
-    }
-
-    private String allLinesFrom(String fileName) throws IOException {
-        File file = new File("res/io/" + fileName);
-        return new Scanner(file).useDelimiter("\\Z").next();
-    }
-
-    private String allLinesFromPOSCAR(String cellCode) throws IOException {
-        return allLinesFrom("../poscar/POSCAR" + cellCode) + "\n\n";
-    }
-
-    private void writeContentForCell(BufferedWriter bw, String cellCode, int index) throws IOException {
-        bw.write("#########\n");
-        bw.write("Cell " + cellCode + "\n");
-        bw.write("#########\n\n");
-        bw.write("Degeneracy: " + allDegeneracies.get(index) + "\n\n");
-        bw.write("Composition: " + composition(cellCode));
-        bw.write("===========================\n");
-        bw.write("Energy convergence results:\n");
-        bw.write("===========================\n\n" + etotResults(cellCode));
-        bw.write("================\n");
-        bw.write("Converged POSCAR\n");
-        bw.write("================\n\n" + allLinesFromPOSCAR(cellCode));
-        bw.write("===========================\n");
-        bw.write("Bond lengths (in angstroms)\n");
-        bw.write("===========================\n\n" + bondLengths(cellCode));
-    }
-
-    private String composition(String cellCode) {
-        String composition = "4C";
-        int oneCounter = 0;
-        int twoCounter = 0;
-        if (!Objects.equals(cellCode, "0000")) {
-            for (char c : cellCode.toCharArray()) {
-                if (c == '1')
-                    oneCounter++;
-                else if (c == '2')
-                    twoCounter++;
+    /**
+     * Builds the cell sections concurrently, but writes and ranks them in the order of the input file. Only a
+     * few sections per thread are built ahead of the one being written, so memory does not grow with the
+     * number of cells. When structures are deduplicated, each cell is looked up in the geometry cache here,
+     * in input order, and its POSCAR is handed on to its section.
+     *
+     * @param out     the renderer of the sections.
+     * @param ranking the ranking the cells are added to, or null if they are not ranked.
+     * @throws IOException if any of the cell files could not be read.
+     */
+    private void writeSectionsInParallel(ReportRenderer out, Ranking ranking) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int window = 4 * parallelism;
+        try {
+            Deque<Future<Section>> sections = new ArrayDeque<>();
+            int next = 0;
+            int written = 0;
+            while (next < allCellCodes.size() || !sections.isEmpty()) {
+                while (next < allCellCodes.size() && sections.size() < window) {
+                    final String cellCode = allCellCodes.get(next);
+                    final int index = next++;
+                    final PoscarFile poscar = deduplicating() ? PoscarFile.of(Cell.filePathFor(cellCode)) : null;
+                    final GeometryCache.Entry geometry = poscar != null ? geometryCache.get(cellCode, poscar) : null;
+                    sections.add(pool.submit(() -> section(cellCode, index, poscar, geometry)));
+                }
+                Section section = sections.poll().get();
+                out.bytes(section.getBytes());
+                rank(ranking, written++, section.getSmallestEnergy());
             }
-            int bothCounter = oneCounter + twoCounter;
-            composition += " " + bothCounter + "H\n";
-            if (twoCounter != 0) {
-                composition += oneCounter + " above the graphene plane\n";
-                composition += twoCounter + " below the graphene plane\n";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Report generation was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @param ranking the stability ranking of the cells, or null if they are not ranked.
+     * @return everything that comes before the cell sections, encoded as in the output file.
+     * @throws IOException if KPOINTS or INCAR could not be read.
+     */
+    byte[] header(Ranking ranking) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReportRenderer out = new ReportRenderer(Channels.newChannel(bytes));
+        writeHeader(out, ranking);
+        out.drain();
+        return bytes.toByteArray();
+    }
+
+    private void writeHeader(ReportRenderer out, Ranking ranking) throws IOException {
+        out.text("=============================================\n");
+        out.text("Results for the convergence of graphane cells\n");
+        out.text("=============================================\n\n");
+        writeRanking(out, ranking);
+        writeCommonParameters(out);
+        out.text("=================================\n");
+        out.text("3. Detailed results for each cell\n");
+        out.text("=================================\n\n");
+    }
+
+    public List<String> getCellCodes() {
+        return allCellCodes;
+    }
+
+    public List<String> getDegeneracies() {
+        return allDegeneracies;
+    }
+
+    /**
+     * @return a ranking without cells yet, relative to the smallest energy of the reference cell, or null if
+     * the curve of the reference cell is not available, in which case the cells are not ranked.
+     */
+    Ranking emptyRanking() {
+        double referenceEnergy = referenceEnergy();
+        return Double.isNaN(referenceEnergy) ? null : new Ranking(rankingSize, referenceEnergy);
+    }
+
+    /**
+     * @return the smallest energy of the reference cell, or NaN if its Etot file is missing or unreadable. The
+     * index is only asked when the campaign lists the cell, since it also needs the POSCAR of the cell.
+     */
+    private double referenceEnergy() {
+        if (!BasicParser.exists(EtotParser.filePathFor(referenceCode)))
+            return Double.NaN;
+        try {
+            if (resultIndex != null && allCellCodes.contains(referenceCode))
+                return resultIndex.get(referenceCode).curve().getSmallestEnergy();
+            return EtotParser.curve(referenceCode).getSmallestEnergy();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Adds a cell to a ranking, with the smallest energy its section was rendered with, so that the curves
+     * are only read once for both.
+     *
+     * @param ranking        the ranking, or null if the cells are not ranked.
+     * @param index          the position of the cell in the input file.
+     * @param smallestEnergy the smallest energy of the cell, in eV.
+     */
+    void rank(Ranking ranking, int index, double smallestEnergy) {
+        if (ranking != null)
+            ranking.accept(allCellCodes.get(index), index, smallestEnergy,
+                    Integer.parseInt(allDegeneracies.get(index)));
+    }
+
+    private void writeRanking(ReportRenderer out, Ranking ranking) throws IOException {
+        out.text("=================================\n");
+        out.text("1. Stability ranking of the cells\n");
+        out.text("=================================\n\n");
+        if (ranking == null) {
+            out.text("Reference cell ").text(referenceCode).text(" not available: the cells are not ranked\n\n");
+            return;
+        }
+        out.text("Energy per hydrogen (in eV), relative to cell ").text(referenceCode).text("\n\n");
+        out.text("Most stable cells:\n\n");
+        writeRankedCells(out, ranking.getMostStable());
+        out.text("Least stable cells:\n\n");
+        writeRankedCells(out, ranking.getLeastStable());
+        WeightedStatistics energiesPerH = ranking.getEnergiesPerH();
+        out.text("Cells ranked: ").integer(energiesPerH.getCount()).text(" (");
+        out.integer((long) energiesPerH.getWeight()).text(" counting degeneracies)\n");
+        if (energiesPerH.getCount() > 0) {
+            out.text("Weighted average energy per hydrogen: ");
+            out.fixed(energiesPerH.getMean(), 4).text(" eV\n");
+        }
+        out.text("\n");
+    }
+
+    private void writeRankedCells(ReportRenderer out, List<Ranking.Entry> entries) throws IOException {
+        for (int i = 0; i < entries.size(); i++) {
+            Ranking.Entry entry = entries.get(i);
+            out.integer(i + 1).text(". Cell ").text(entry.getCode()).text(": ");
+            out.fixed(entry.getEnergyPerH(), 4).text(" eV (degeneracy ").integer(entry.getDegeneracy()).text(")\n");
+        }
+        out.text("\n");
+    }
+
+    private void writeCommonParameters(ReportRenderer out) throws IOException {
+        out.text("==================================\n");
+        out.text("2. Common parameters for all cells\n");
+        out.text("==================================\n\n");
+        out.text("===========\n2.1 KPOINTS\n===========\n\n");
+        writeAllLinesFrom(out, "KPOINTS");
+        out.text("\n\n");
+        out.text("=========\n2.2 INCAR\n=========\n\n");
+        writeAllLinesFrom(out, "INCAR");
+        out.text("\n\n");
+    }
+
+    private void writeAllLinesFrom(ReportRenderer out, String fileName) throws IOException {
+        writeFileWithoutLastLineTerminator(out, BasicParser.resourcePath(ioPath + fileName));
+    }
+
+    private static void writeFileWithoutLastLineTerminator(ReportRenderer out, String filePath) throws IOException {
+        if (BasicParser.isArchived(filePath))
+            out.bytesWithoutLastLineTerminator(BasicParser.read(filePath));
+        else
+            out.fileWithoutLastLineTerminator(Paths.get(filePath));
+    }
+
+    private void writeAllLinesFromPOSCAR(ReportRenderer out, String cellCode, PoscarFile poscar) throws IOException {
+        if (poscar != null)
+            out.bytesWithoutLastLineTerminator(poscar.bytes());
+        else
+            writeFileWithoutLastLineTerminator(out, Cell.filePathFor(cellCode));
+        out.text("\n\n");
+    }
+
+    /**
+     * The section of a cell, encoded as in the output file, with the smallest energy of the cell.
+     */
+    static final class Section {
+
+        private final byte[] bytes;
+        private final double smallestEnergy;
+
+        Section(byte[] bytes, double smallestEnergy) {
+            this.bytes = bytes;
+            this.smallestEnergy = smallestEnergy;
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        double getSmallestEnergy() {
+            return smallestEnergy;
+        }
+
+    }
+
+    /**
+     * @return the section of a cell.
+     * @throws IOException if the files of the cell could not be read.
+     */
+    Section section(String cellCode, int index) throws IOException {
+        return section(cellCode, index, null, null);
+    }
+
+    private Section section(String cellCode, int index, PoscarFile poscar, GeometryCache.Entry geometry)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReportRenderer out = new ReportRenderer(Channels.newChannel(bytes));
+        double smallestEnergy = writeContentForCell(out, cellCode, index, poscar, geometry);
+        out.drain();
+        return new Section(bytes.toByteArray(), smallestEnergy);
+    }
+
+    private boolean deduplicating() {
+        return geometryCache != null && resultIndex == null;
+    }
+
+    /**
+     * @param poscar   the POSCAR of the cell if it was already read, or null.
+     * @param geometry the entry of the cell in the geometry cache, or null to analyze the cell.
+     * @return the smallest energy of the cell.
+     */
+    private double writeContentForCell(ReportRenderer out, String cellCode, int index, PoscarFile poscar,
+                                       GeometryCache.Entry geometry) throws IOException {
+        long start = Metrics.start();
+        EtotCurve curve;
+        List<Double> cellLengths;
+        int cellHs;
+        String duplicateOf = null;
+        if (resultIndex != null) {
+            CellRecord record = resultIndex.get(cellCode);
+            curve = record.curve();
+            cellLengths = record.getRelevantDistances();
+            cellHs = record.getNumberOfH();
+        } else {
+            if (poscar == null)
+                poscar = PoscarFile.of(Cell.filePathFor(cellCode));
+            curve = EtotParser.curve(cellCode);
+            if (geometry != null) {
+                if (!geometry.getCode().equals(cellCode))
+                    duplicateOf = geometry.getCode();
+                cellLengths = geometry.getRelevantDistances();
+                cellHs = geometry.getNumberOfH();
+            } else {
+                Cell cell = new Cell(cellCode, poscar);
+                cellLengths = cell.getRelevantDistances();
+                cellHs = cell.getNumberOfH();
+            }
+        }
+        out.text("#########\n");
+        out.text("Cell ").text(cellCode).text("\n");
+        out.text("#########\n\n");
+        out.text("Degeneracy: ").text(allDegeneracies.get(index)).text("\n\n");
+        if (duplicateOf != null)
+            out.text("Same structure as cell ").text(duplicateOf).text("\n\n");
+        out.text("Composition: ");
+        writeComposition(out, cellCode);
+        out.text("===========================\n");
+        out.text("Energy convergence results:\n");
+        out.text("===========================\n\n");
+        writeEtotResults(out, curve);
+        out.text("================\n");
+        out.text("Converged POSCAR\n");
+        out.text("================\n\n");
+        writeAllLinesFromPOSCAR(out, cellCode, poscar);
+        out.text("===========================\n");
+        out.text("Bond lengths (in angstroms)\n");
+        out.text("===========================\n\n");
+        writeBondLengths(out, cellLengths, cellHs);
+        Metrics.increment(Metrics.Counter.CELLS);
+        Metrics.stop(Metrics.Stage.SECTION, start);
+        return curve.getSmallestEnergy();
+    }
+
+    private void writeComposition(ReportRenderer out, String cellCode) throws IOException {
+        out.text("4C");
+        if (!Objects.equals(cellCode, "0000")) {
+            Composition composition = Composition.of(cellCode);
+            out.text(" ").integer(composition.getNumberOfH()).text("H\n");
+            if (composition.getBelow() != 0) {
+                out.integer(composition.getAbove()).text(" above the graphene plane\n");
+                out.integer(composition.getBelow()).text(" below the graphene plane\n");
             }
-        } else composition += "\n";
-        return composition + "\n";
-    }
-
-    private String etotResults(String cellCode) {
-        List<Double> energyList = EtotParser.energyList(cellCode);
-        List<String> parameterList = EtotParser.parameterList(cellCode);
-        Double smallest = EtotParser.smallestEnergy(cellCode);
-        boolean expected = EtotParser.isGlobalMinimum(cellCode);
-        String etot = "==========================================================\n";
-        etot += "Energies (in eV) for each lattice parameter (in angstroms)\n";
-        etot += "==========================================================\n\n";
-        for (int i = 0; i < energyList.size(); i++)
-            etot += parameterList.get(i) + " " + energyList.get(i).toString() + "\n";
-        etot += "\nSmallest energy: " + smallest.toString() + " eV\n";
-        etot += "\nIdeal parameter: " + EtotParser.idealParameterFor(cellCode) + " Å\n\n";
-        etot += "Energy curve behaved as expected: ";
-        etot += expected ? "Yes\n\n" : "No\n\n";
-        return etot;
-    }
-
-    private String bondLengths(String cellCode) {
-        String bond = "C-C bond lengths:\n\n";
-        Cell cell = new Cell(cellCode);
-        List<Double> cellLengths = cell.getRelevantDistances();
-        int cellHs = cell.getNumberOfH();
+        } else out.text("\n");
+        out.text("\n");
+    }
+
+    private void writeEtotResults(ReportRenderer out, EtotCurve curve) throws IOException {
+        out.text("==========================================================\n");
+        out.text("Energies (in eV) for each lattice parameter (in angstroms)\n");
+        out.text("==========================================================\n\n");
+        for (int i = 0; i < curve.size(); i++)
+            out.text(curve.parameterAt(i)).text(" ").number(curve.energyAt(i)).text("\n");
+        out.text("\nSmallest energy: ").number(curve.getSmallestEnergy()).text(" eV\n");
+        out.text("\nIdeal parameter: ").text(curve.getIdealParameter()).text(" Å\n\n");
+        out.text("Energy curve behaved as expected: ");
+        out.text(curve.isGlobalMinimum() ? "Yes\n\n" : "No\n\n");
+    }
+
+    private void writeBondLengths(ReportRenderer out, List<Double> cellLengths, int cellHs) throws IOException {
+        out.text("C-C bond lengths:\n\n");
         for (int i = 0; i < 4; i++)
-            bond += cellLengths.get(i).toString() + "\n";
-        bond += "\nAverage C-C bond length: ";
-        bond += averageLengthString(cellLengths, 0, 4) + " Å\n";
+            out.number(cellLengths.get(i)).text("\n");
+        out.text("\nAverage C-C bond length: ");
+        out.fixed(averageLength(cellLengths, 0, 4), 3).text(" Å\n");
         if (cellHs > 0) {
-            bond += "\nC-H bond length(s):\n\n";
+            out.text("\nC-H bond length(s):\n\n");
             for (int i = 0; i < cellHs; i++)
-                bond += cellLengths.get(4 + i).toString() + "\n";
-            bond += "\nAverage C-H bond length: ";
-            bond += averageLengthString(cellLengths, 4, 4 + cellHs) + " Å\n";
+                out.number(cellLengths.get(4 + i)).text("\n");
+            out.text("\nAverage C-H bond length: ");
+            out.fixed(averageLength(cellLengths, 4, 4 + cellHs), 3).text(" Å\n");
         }
-        return bond + "\n";
+        out.text("\n");
     }
 
-    private Double averageLength(List<Double> cellLengths, int beginning, int end) {
-        Double average = 0.0;
+    private double averageLength(List<Double> cellLengths, int beginning, int end) {
+        double average = 0.0;
         for (int i = beginning; i < end; i++)
             average += cellLengths.get(i);
         return average / (1.0 * (end - beginning));
     }
 
-    private String averageLengthString(List<Double> cellLengths, int beginning, int end){
-        Double average = averageLength(cellLengths, beginning, end);
-        return String.format("%.3f", average);
-    }
-
+    /**
+     * Writes the report. An optional argument sets how many cell sections are built at the same time, and a
+     * second one the path of a binary index to load the results of each cell from. Cells with the same
+     * structure are pointed out when the system property <em>graphane.deduplicate</em> gives the tolerance
+     * (in angstroms) of the comparison, and <em>graphane.rank</em> sets how many cells are listed at each end
+     * of the stability ranking.
+     *
+     * @param args an optional parallelism level and an optional index path.
+     */
     public static void main(String[] args) {
-        ReportWriter rw = new ReportWriter();
+        ReportWriter rw = args.length > 0 ? new ReportWriter(Integer.parseInt(args[0])) : new ReportWriter();
+        if (args.length > 1)
+            rw.setIndex(ResultIndex.open(args[1]));
+        String tolerance = System.getProperty("graphane.deduplicate");
+        if (tolerance != null)
+            rw.setGeometryCache(new GeometryCache(Double.parseDouble(tolerance)));
+        String rankingSize = System.getProperty("graphane.rank");
+        if (rankingSize != null)
+            rw.setRankingSize(Integer.parseInt(rankingSize));
         rw.run();
     }
 
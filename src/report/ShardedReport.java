@@ -0,0 +1,254 @@
+package report;
+
+import basics.BasicParser;
+import statistics.Ranking;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the report with several worker processes, on one machine or on nodes sharing a filesystem. Each
+ * worker renders the sections of its share of the cells into its own shard file, and a merge step ranks
+ * the cells out of the energies in the shards, then copies the sections back into the order of the input
+ * file after the common header, so the output is the same as the one of a single {@link ReportWriter}.
+ * <p>
+ * A shard file holds the sections of its cells in input order, each one after the smallest energy of its
+ * cell as an eight-byte double and its length as a four-byte integer. Workers write it under a temporary
+ * name and rename it when done, so the merge only sees whole shards.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ShardedReport {
+
+    /**
+     * How the cells of the input file are shared between the workers.
+     */
+    public enum Partition {
+
+        /**
+         * Each worker gets a contiguous range of the input file.
+         */
+        RANGE,
+
+        /**
+         * Each worker gets the cells whose code hashes to it, wherever they are in the input file.
+         */
+        HASH;
+
+        int shardOf(int index, String cellCode, int cells, int shards) {
+            if (this == RANGE)
+                return (int) ((long) index * shards / cells);
+            return Math.floorMod(cellCode.hashCode(), shards);
+        }
+
+    }
+
+    private final int shards;
+    private final Path directory;
+    private final Partition partition;
+
+    /**
+     * @param shards    the number of workers.
+     * @param directory the directory the shard files are written to.
+     * @param partition how the cells are shared between the workers.
+     */
+    public ShardedReport(int shards, Path directory, Partition partition) {
+        if (shards < 1)
+            throw new IllegalArgumentException("There must be at least one shard: " + shards);
+        this.shards = shards;
+        this.directory = directory;
+        this.partition = partition;
+    }
+
+    Path shardFile(int shard) {
+        return directory.resolve(String.format(Locale.ROOT, "shard-%d-of-%d.sections", shard, shards));
+    }
+
+    private ReportWriter inputWriter() {
+        ReportWriter writer = new ReportWriter();
+        writer.readInput();
+        return writer;
+    }
+
+    /**
+     * Renders the sections of one share of the cells.
+     *
+     * @param shard the index of the worker, from zero.
+     * @throws IOException if a cell could not be read or the shard could not be written.
+     */
+    public void writeShard(int shard) throws IOException {
+        if (shard < 0 || shard >= shards)
+            throw new IllegalArgumentException("No shard " + shard + " of " + shards);
+        ReportWriter writer = inputWriter();
+        List<String> cellCodes = writer.getCellCodes();
+        Files.createDirectories(directory);
+        Path target = shardFile(shard);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+                1 << 16))) {
+            for (int i = 0; i < cellCodes.size(); i++) {
+                if (partition.shardOf(i, cellCodes.get(i), cellCodes.size(), shards) != shard)
+                    continue;
+                ReportWriter.Section section = writer.section(cellCodes.get(i), i);
+                out.writeDouble(section.getSmallestEnergy());
+                out.writeInt(section.getBytes().length);
+                out.write(section.getBytes());
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Ranks the cells with the energies in the shards, without reading their sections, then writes the header
+     * and every section, taken from the shard of its cell.
+     *
+     * @param output the path of the merged report.
+     * @throws IOException if a shard is missing or too short, or the report could not be written.
+     */
+    public void merge(Path output) throws IOException {
+        ReportWriter writer = inputWriter();
+        List<String> cellCodes = writer.getCellCodes();
+        FileChannel[] inputs = new FileChannel[shards];
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int shard = 0; shard < shards; shard++) {
+                if (!Files.isRegularFile(shardFile(shard)))
+                    throw new IOException("Shard " + shard + " has not been written: " + shardFile(shard));
+                inputs[shard] = FileChannel.open(shardFile(shard), StandardOpenOption.READ);
+            }
+            Ranking ranking = writer.emptyRanking();
+            ByteBuffer prefix = ByteBuffer.allocate(12);
+            for (int i = 0; i < cellCodes.size(); i++) {
+                FileChannel in = inputs[partition.shardOf(i, cellCodes.get(i), cellCodes.size(), shards)];
+                long length = readPrefix(in, prefix, cellCodes.get(i));
+                writer.rank(ranking, i, prefix.getDouble(0));
+                in.position(in.position() + length);
+            }
+            for (FileChannel in : inputs)
+                in.position(0);
+            ByteBuffer header = ByteBuffer.wrap(writer.header(ranking));
+            while (header.hasRemaining())
+                out.write(header);
+            for (int i = 0; i < cellCodes.size(); i++) {
+                FileChannel in = inputs[partition.shardOf(i, cellCodes.get(i), cellCodes.size(), shards)];
+                long remaining = readPrefix(in, prefix, cellCodes.get(i));
+                long position = in.position();
+                while (remaining > 0) {
+                    long copied = in.transferTo(position, remaining, out);
+                    position += copied;
+                    remaining -= copied;
+                }
+                in.position(position);
+            }
+            for (int shard = 0; shard < shards; shard++)
+                if (inputs[shard].position() != inputs[shard].size())
+                    throw new IOException("Shard " + shard + " has sections for cells that are not in the input file");
+        } finally {
+            for (FileChannel in : inputs)
+                if (in != null)
+                    in.close();
+        }
+    }
+
+    /**
+     * Reads the energy and the length that come before a section.
+     *
+     * @return the length of the section, which is checked to be all in the shard.
+     */
+    private static long readPrefix(FileChannel in, ByteBuffer prefix, String cellCode) throws IOException {
+        prefix.clear();
+        while (prefix.hasRemaining())
+            if (in.read(prefix) < 0)
+                throw new IOException("Shard is missing the section of cell " + cellCode);
+        long length = prefix.getInt(8);
+        if (length < 0 || in.position() + length > in.size())
+            throw new IOException("Shard is missing the section of cell " + cellCode);
+        return length;
+    }
+
+    /**
+     * Runs every worker as a separate JVM on this machine, waits for them and merges their shards.
+     *
+     * @param output the path of the merged report.
+     * @throws IOException if a worker failed or the merge did not succeed.
+     */
+    public void runLocally(Path output) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> workers = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-Dfile.encoding=" + Charset.defaultCharset().name());
+            String resources = System.getProperty("graphane.res");
+            if (resources != null)
+                command.add("-Dgraphane.res=" + resources);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(ShardedReport.class.getName());
+            command.add("worker");
+            command.add(Integer.toString(shard));
+            command.add(Integer.toString(shards));
+            command.add(directory.toString());
+            command.add(partition.name().toLowerCase(Locale.ROOT));
+            workers.add(new ProcessBuilder(command).inheritIO().start());
+        }
+        try {
+            for (int shard = 0; shard < shards; shard++)
+                if (workers.get(shard).waitFor() != 0)
+                    throw new IOException("Worker " + shard + " failed with status " + workers.get(shard).exitValue());
+        } catch (InterruptedException e) {
+            for (Process worker : workers)
+                worker.destroy();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The workers were interrupted");
+        }
+        merge(output);
+    }
+
+    /**
+     * Usage, where the partition is <em>range</em> (the default) or <em>hash</em>:
+     * <ul>
+     * <li><em>worker shard shards directory [partition]</em> renders one shard;</li>
+     * <li><em>merge shards directory [partition]</em> writes the output file out of the shards;</li>
+     * <li><em>local shards directory [partition]</em> runs every worker here, then the merge.</li>
+     * </ul>
+     */
+    public static void main(String[] args) throws IOException {
+        boolean worker = args[0].equals("worker");
+        int next = worker ? 2 : 1;
+        int shards = Integer.parseInt(args[next]);
+        Path directory = Paths.get(args[next + 1]);
+        Partition partition = args.length > next + 2
+                ? Partition.valueOf(args[next + 2].toUpperCase(Locale.ROOT)) : Partition.RANGE;
+        ShardedReport report = new ShardedReport(shards, directory, partition);
+        Path output = ReportWriter.outputPath();
+        switch (args[0]) {
+            case "worker":
+                report.writeShard(Integer.parseInt(args[1]));
+                break;
+            case "merge":
+                report.merge(output);
+                break;
+            case "local":
+                report.runLocally(output);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + args[0]);
+        }
+    }
+
+}
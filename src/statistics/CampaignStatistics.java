@@ -0,0 +1,275 @@
+package statistics;
+
+import basics.BasicParser;
+import bounds.Cell;
+import energy.EtotCurve;
+import energy.EtotParser;
+import report.ReportWriter;
+import store.CellRecord;
+import store.ResultIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Statistics of a whole campaign: the smallest energy of each cell and its C-C and C-H bond lengths, weighted
+ * by the degeneracy of the cell, overall and for each composition class, with histograms of the bond lengths.
+ * Cells are read in parallel by fork-join tasks that each keep their own statistics and merge them on the
+ * way back, so no cell is kept once it has been counted.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class CampaignStatistics {
+
+    static final int threshold = 64;
+    static final int numberOfCC = 4;
+
+    private final WeightedStatistics energies = new WeightedStatistics();
+    private final WeightedStatistics carbonBonds = new WeightedStatistics();
+    private final WeightedStatistics hydrogenBonds = new WeightedStatistics();
+    private final Histogram carbonHistogram;
+    private final Histogram hydrogenHistogram;
+    private final Map<Composition, WeightedStatistics[]> byComposition = new TreeMap<>();
+
+    public CampaignStatistics() {
+        this(new Histogram(1.35, 1.70, 70), new Histogram(1.00, 1.20, 40));
+    }
+
+    /**
+     * @param carbonHistogram   the (empty) histogram of C-C bond lengths.
+     * @param hydrogenHistogram the (empty) histogram of C-H bond lengths.
+     */
+    public CampaignStatistics(Histogram carbonHistogram, Histogram hydrogenHistogram) {
+        this.carbonHistogram = carbonHistogram;
+        this.hydrogenHistogram = hydrogenHistogram;
+    }
+
+    private CampaignStatistics emptyCopy() {
+        return new CampaignStatistics(carbonHistogram.emptyCopy(), hydrogenHistogram.emptyCopy());
+    }
+
+    /**
+     * Counts one cell.
+     *
+     * @param cellCode       the cell code.
+     * @param degeneracy     the number of configurations the cell stands for.
+     * @param smallestEnergy the smallest energy of its sweep.
+     * @param distances      its bond lengths, the C-C bonds first, as given by {@link Cell#getRelevantDistances()}.
+     */
+    public void accept(String cellCode, int degeneracy, double smallestEnergy, List<Double> distances) {
+        WeightedStatistics[] group = byComposition.computeIfAbsent(Composition.of(cellCode),
+                composition -> new WeightedStatistics[]{new WeightedStatistics(), new WeightedStatistics(),
+                        new WeightedStatistics()});
+        energies.accept(smallestEnergy, degeneracy);
+        group[0].accept(smallestEnergy, degeneracy);
+        for (int i = 0; i < distances.size(); i++) {
+            double length = distances.get(i);
+            if (i < numberOfCC) {
+                carbonBonds.accept(length, degeneracy);
+                group[1].accept(length, degeneracy);
+                carbonHistogram.accept(length, degeneracy);
+            } else {
+                hydrogenBonds.accept(length, degeneracy);
+                group[2].accept(length, degeneracy);
+                hydrogenHistogram.accept(length, degeneracy);
+            }
+        }
+    }
+
+    /**
+     * Adds the cells counted by another instance to this one.
+     *
+     * @param other the other statistics, with the same histogram bins.
+     * @return these statistics.
+     */
+    public CampaignStatistics combine(CampaignStatistics other) {
+        energies.combine(other.energies);
+        carbonBonds.combine(other.carbonBonds);
+        hydrogenBonds.combine(other.hydrogenBonds);
+        carbonHistogram.combine(other.carbonHistogram);
+        hydrogenHistogram.combine(other.hydrogenHistogram);
+        for (Map.Entry<Composition, WeightedStatistics[]> entry : other.byComposition.entrySet()) {
+            WeightedStatistics[] group = byComposition.get(entry.getKey());
+            if (group == null)
+                byComposition.put(entry.getKey(), entry.getValue());
+            else
+                for (int i = 0; i < group.length; i++)
+                    group[i].combine(entry.getValue()[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Computes the statistics of a campaign.
+     *
+     * @param cellCodes    the cell codes.
+     * @param degeneracies the degeneracy of each cell.
+     * @param parallelism  the number of cells read at the same time.
+     * @param index        a binary index to read the cells from, or null to parse their text files.
+     * @return the statistics of the campaign.
+     */
+    public static CampaignStatistics of(List<String> cellCodes, List<String> degeneracies, int parallelism,
+                                        ResultIndex index) {
+        CampaignStatistics empty = new CampaignStatistics();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new Task(empty, cellCodes, degeneracies, index, 0, cellCodes.size()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static final class Task extends RecursiveTask<CampaignStatistics> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CampaignStatistics empty;
+        private final List<String> cellCodes, degeneracies;
+        private final ResultIndex index;
+        private final int from, to;
+
+        Task(CampaignStatistics empty, List<String> cellCodes, List<String> degeneracies, ResultIndex index,
+             int from, int to) {
+            this.empty = empty;
+            this.cellCodes = cellCodes;
+            this.degeneracies = degeneracies;
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CampaignStatistics compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                Task left = new Task(empty, cellCodes, degeneracies, index, from, middle);
+                left.fork();
+                CampaignStatistics right = new Task(empty, cellCodes, degeneracies, index, middle, to).compute();
+                return left.join().combine(right);
+            }
+            CampaignStatistics statistics = empty.emptyCopy();
+            for (int i = from; i < to; i++) {
+                String cellCode = cellCodes.get(i);
+                int degeneracy = Integer.parseInt(degeneracies.get(i).trim());
+                if (index != null) {
+                    try {
+                        CellRecord record = index.get(cellCode);
+                        double smallest = Double.POSITIVE_INFINITY;
+                        for (int point = 0; point < record.size(); point++)
+                            smallest = Math.min(smallest, record.energyAt(point));
+                        statistics.accept(cellCode, degeneracy, smallest, record.getRelevantDistances());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else {
+                    EtotCurve curve = new EtotCurve(BasicParser.tokenizedFile(EtotParser.filePathFor(cellCode)));
+                    statistics.accept(cellCode, degeneracy, curve.getSmallestEnergy(),
+                            new Cell(cellCode).getRelevantDistances());
+                }
+            }
+            return statistics;
+        }
+
+    }
+
+    public WeightedStatistics getEnergies() {
+        return energies;
+    }
+
+    public WeightedStatistics getCarbonBonds() {
+        return carbonBonds;
+    }
+
+    public WeightedStatistics getHydrogenBonds() {
+        return hydrogenBonds;
+    }
+
+    public Histogram getCarbonHistogram() {
+        return carbonHistogram;
+    }
+
+    public Histogram getHydrogenHistogram() {
+        return hydrogenHistogram;
+    }
+
+    /**
+     * @return the compositions that were counted, by number of hydrogen atoms.
+     */
+    public Iterable<Composition> getCompositions() {
+        return byComposition.keySet();
+    }
+
+    public WeightedStatistics energiesOf(Composition composition) {
+        return byComposition.get(composition)[0];
+    }
+
+    public WeightedStatistics carbonBondsOf(Composition composition) {
+        return byComposition.get(composition)[1];
+    }
+
+    public WeightedStatistics hydrogenBondsOf(Composition composition) {
+        return byComposition.get(composition)[2];
+    }
+
+    private static String line(String label, WeightedStatistics statistics) {
+        return String.format(Locale.ROOT, "%-36s %8d %10.0f %12.6f %10.6f %12.6f %12.6f%n", label,
+                statistics.getCount(), statistics.getWeight(), statistics.getMean(),
+                statistics.getStandardDeviation(), statistics.getMin(), statistics.getMax());
+    }
+
+    private static String histogram(String label, Histogram histogram) {
+        StringBuilder text = new StringBuilder(label).append(String.format(Locale.ROOT, " (below %.3f: %d, above %.3f: %d)%n",
+                histogram.getLower(), histogram.getUnderflow(), histogram.getUpper(), histogram.getOverflow()));
+        for (int bin = 0; bin < histogram.getBins(); bin++)
+            if (histogram.countAt(bin) > 0)
+                text.append(String.format(Locale.ROOT, "  %.3f %d%n", histogram.lowerBoundOf(bin), histogram.countAt(bin)));
+        return text.toString();
+    }
+
+    /**
+     * @return a plain-text summary, with the weighted mean, deviation and extremes of every group.
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%-36s %8s %10s %12s %10s %12s %12s%n",
+                "", "values", "weight", "mean", "std", "min", "max"));
+        text.append(line("Energy (eV)", energies));
+        text.append(line("C-C bond (Å)", carbonBonds));
+        text.append(line("C-H bond (Å)", hydrogenBonds));
+        for (Composition composition : getCompositions()) {
+            text.append(line("Energy (eV), " + composition, energiesOf(composition)));
+            text.append(line("C-C bond (Å), " + composition, carbonBondsOf(composition)));
+            if (composition.getNumberOfH() > 0)
+                text.append(line("C-H bond (Å), " + composition, hydrogenBondsOf(composition)));
+        }
+        text.append(histogram("C-C bond lengths", carbonHistogram));
+        text.append(histogram("C-H bond lengths", hydrogenHistogram));
+        return text.toString();
+    }
+
+    /**
+     * Prints the statistics of the cells of the report input. The optional arguments are the parallelism and
+     * the path of a binary index.
+     */
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        ResultIndex index = args.length > 1 ? ResultIndex.open(args[1]) : null;
+        ReportWriter writer = new ReportWriter();
+        writer.readInput();
+        System.out.print(of(writer.getCellCodes(), writer.getDegeneracies(), parallelism, index).summary());
+        if (index != null) {
+            try {
+                index.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package statistics;
+
+/**
+ * Composition class of a hydrogenation code: how many hydrogen atoms are bound above and below the graphene
+ * plane. Codes with the same composition may still differ in which carbons are bound.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Composition implements Comparable<Composition> {
+
+    private final int above;
+    private final int below;
+
+    public Composition(int above, int below) {
+        this.above = above;
+        this.below = below;
+    }
+
+    /**
+     * @param cellCode the cell code, where 1 marks a hydrogen above the plane and 2 one below it.
+     * @return the composition of the cell.
+     */
+    public static Composition of(String cellCode) {
+        int above = 0;
+        int below = 0;
+        for (int i = 0; i < cellCode.length(); i++) {
+            char c = cellCode.charAt(i);
+            if (c == '1')
+                above++;
+            else if (c == '2')
+                below++;
+        }
+        return new Composition(above, below);
+    }
+
+    public int getAbove() {
+        return above;
+    }
+
+    public int getBelow() {
+        return below;
+    }
+
+    public int getNumberOfH() {
+        return above + below;
+    }
+
+    @Override
+    public int compareTo(Composition other) {
+        if (getNumberOfH() != other.getNumberOfH())
+            return Integer.compare(getNumberOfH(), other.getNumberOfH());
+        return Integer.compare(other.above, above);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Composition && ((Composition) other).above == above
+                && ((Composition) other).below == below;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * above + below;
+    }
+
+    @Override
+    public String toString() {
+        return getNumberOfH() + "H (" + above + " above, " + below + " below)";
+    }
+
+}
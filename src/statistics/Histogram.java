@@ -0,0 +1,104 @@
+package statistics;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable histogram with bins of equal width. Values out of the range are counted apart, below or above it.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Histogram {
+
+    private final double lower;
+    private final double width;
+    private final long[] counts;
+    private long underflow;
+    private long overflow;
+
+    /**
+     * @param lower the lower bound of the first bin.
+     * @param upper the upper bound of the last bin.
+     * @param bins  the number of bins.
+     */
+    public Histogram(double lower, double upper, int bins) {
+        if (!(upper > lower) || bins < 1)
+            throw new IllegalArgumentException("Bad histogram range: [" + lower + ", " + upper + ") in " + bins);
+        this.lower = lower;
+        this.width = (upper - lower) / bins;
+        this.counts = new long[bins];
+    }
+
+    /**
+     * @return an empty histogram with the same bins.
+     */
+    public Histogram emptyCopy() {
+        return new Histogram(lower, getUpper(), counts.length);
+    }
+
+    public void accept(double value, long times) {
+        int bin = (int) Math.floor((value - lower) / width);
+        if (bin < 0)
+            underflow += times;
+        else if (bin >= counts.length)
+            overflow += times;
+        else
+            counts[bin] += times;
+    }
+
+    /**
+     * Adds the counts of another histogram with the same bins.
+     *
+     * @param other the other histogram.
+     * @return this histogram.
+     */
+    public Histogram combine(Histogram other) {
+        if (other.counts.length != counts.length || other.lower != lower || other.width != width)
+            throw new IllegalArgumentException("Only histograms with the same bins can be combined");
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        underflow += other.underflow;
+        overflow += other.overflow;
+        return this;
+    }
+
+    public int getBins() {
+        return counts.length;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return lower + width * counts.length;
+    }
+
+    public double lowerBoundOf(int bin) {
+        return lower + width * bin;
+    }
+
+    public long countAt(int bin) {
+        return counts[bin];
+    }
+
+    public long[] getCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    public long getUnderflow() {
+        return underflow;
+    }
+
+    public long getOverflow() {
+        return overflow;
+    }
+
+    public long getTotal() {
+        long total = underflow + overflow;
+        for (long count : counts)
+            total += count;
+        return total;
+    }
+
+}
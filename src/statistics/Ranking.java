@@ -0,0 +1,150 @@
+package statistics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Streaming ranking of cells by stability: the smallest energy of a cell minus the one of the bare cell
+ * (<em>0000</em>), divided by the number of hydrogen atoms of its code. Only the k most stable and the k least
+ * stable cells are kept, each set in a bounded heap whose root is the cell to drop first, so a campaign of any
+ * size is ranked in O(k) memory. Every ranked cell also goes into a degeneracy-weighted summary of the metric.
+ * Rankings built over different cells are merged with {@link #combine(Ranking)}.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class Ranking {
+
+    /**
+     * A ranked cell. Cells with the same metric are ordered by their position in the input file.
+     */
+    public static final class Entry {
+
+        private final String code;
+        private final int index;
+        private final double energyPerH;
+        private final int degeneracy;
+
+        Entry(String code, int index, double energyPerH, int degeneracy) {
+            this.code = code;
+            this.index = index;
+            this.energyPerH = energyPerH;
+            this.degeneracy = degeneracy;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public double getEnergyPerH() {
+            return energyPerH;
+        }
+
+        public int getDegeneracy() {
+            return degeneracy;
+        }
+
+    }
+
+    private static final Comparator<Entry> mostStableFirst =
+            Comparator.comparingDouble((Entry entry) -> entry.energyPerH).thenComparingInt(entry -> entry.index);
+    private static final Comparator<Entry> leastStableFirst =
+            Comparator.comparingDouble((Entry entry) -> -entry.energyPerH).thenComparingInt(entry -> entry.index);
+
+    private final int size;
+    private final double referenceEnergy;
+    private final PriorityQueue<Entry> mostStable;
+    private final PriorityQueue<Entry> leastStable;
+    private final WeightedStatistics energiesPerH = new WeightedStatistics();
+
+    /**
+     * @param size            how many cells are kept at each end of the ranking.
+     * @param referenceEnergy the smallest energy of the bare cell, in eV.
+     */
+    public Ranking(int size, double referenceEnergy) {
+        if (size < 1)
+            throw new IllegalArgumentException("The ranking must keep at least one cell: " + size);
+        this.size = size;
+        this.referenceEnergy = referenceEnergy;
+        mostStable = new PriorityQueue<>(size + 1, mostStableFirst.reversed());
+        leastStable = new PriorityQueue<>(size + 1, leastStableFirst.reversed());
+    }
+
+    /**
+     * Ranks a cell. Cells without hydrogen have no energy per hydrogen and are left out.
+     *
+     * @param cellCode       the cell code.
+     * @param index          the position of the cell in the input file.
+     * @param smallestEnergy the smallest energy of the cell, in eV.
+     * @param degeneracy     the degeneracy of the cell.
+     */
+    public void accept(String cellCode, int index, double smallestEnergy, int degeneracy) {
+        int numberOfH = Composition.of(cellCode).getNumberOfH();
+        if (numberOfH == 0)
+            return;
+        double energyPerH = (smallestEnergy - referenceEnergy) / numberOfH;
+        energiesPerH.accept(energyPerH, degeneracy);
+        Entry entry = new Entry(cellCode, index, energyPerH, degeneracy);
+        keep(mostStable, entry);
+        keep(leastStable, entry);
+    }
+
+    private void keep(PriorityQueue<Entry> heap, Entry entry) {
+        heap.add(entry);
+        if (heap.size() > size)
+            heap.poll();
+    }
+
+    /**
+     * Adds the cells ranked by another instance, with the same size and reference, to this one.
+     *
+     * @param other the other ranking.
+     * @return this ranking.
+     */
+    public Ranking combine(Ranking other) {
+        if (other.size != size || other.referenceEnergy != referenceEnergy)
+            throw new IllegalArgumentException("Rankings of different sizes or references cannot be combined");
+        for (Entry entry : other.mostStable)
+            keep(mostStable, entry);
+        for (Entry entry : other.leastStable)
+            keep(leastStable, entry);
+        energiesPerH.combine(other.energiesPerH);
+        return this;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getReferenceEnergy() {
+        return referenceEnergy;
+    }
+
+    /**
+     * @return the most stable cells, the most stable one first.
+     */
+    public List<Entry> getMostStable() {
+        List<Entry> entries = new ArrayList<>(mostStable);
+        entries.sort(mostStableFirst);
+        return entries;
+    }
+
+    /**
+     * @return the least stable cells, the least stable one first.
+     */
+    public List<Entry> getLeastStable() {
+        List<Entry> entries = new ArrayList<>(leastStable);
+        entries.sort(leastStableFirst);
+        return entries;
+    }
+
+    /**
+     * @return the degeneracy-weighted summary of the energy per hydrogen of every ranked cell.
+     */
+    public WeightedStatistics getEnergiesPerH() {
+        return energiesPerH;
+    }
+
+}
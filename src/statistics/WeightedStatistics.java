@@ -0,0 +1,95 @@
+package statistics;
+
+/**
+ * Mergeable summary of weighted values: total weight, mean, spread and extremes. Partial summaries built on
+ * different threads are combined with the pairwise update of Chan, Golub and LeVeque, so the result does
+ * not depend on how the values were split.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class WeightedStatistics {
+
+    private long count;
+    private double weight;
+    private double mean;
+    private double squares;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param value  the value.
+     * @param weight its weight, such as the degeneracy of a cell.
+     */
+    public void accept(double value, double weight) {
+        if (weight <= 0.0)
+            return;
+        count++;
+        this.weight += weight;
+        double delta = value - mean;
+        mean += delta * weight / this.weight;
+        squares += weight * delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values summarized by another instance to this one.
+     *
+     * @param other the other summary.
+     * @return this summary.
+     */
+    public WeightedStatistics combine(WeightedStatistics other) {
+        if (other.weight == 0.0)
+            return this;
+        if (weight == 0.0) {
+            count = other.count;
+            weight = other.weight;
+            mean = other.mean;
+            squares = other.squares;
+            min = other.min;
+            max = other.max;
+            return this;
+        }
+        double total = weight + other.weight;
+        double delta = other.mean - mean;
+        squares += other.squares + delta * delta * weight * other.weight / total;
+        mean += delta * other.weight / total;
+        weight = total;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * @return the number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public double getMean() {
+        return weight == 0.0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the weighted standard deviation of the population.
+     */
+    public double getStandardDeviation() {
+        return weight == 0.0 ? Double.NaN : Math.sqrt(squares / weight);
+    }
+
+    public double getMin() {
+        return weight == 0.0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return weight == 0.0 ? Double.NaN : max;
+    }
+
+}
@@ -0,0 +1,175 @@
+package store;
+
+import energy.EtotCurve;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The stored results of one cell: its energy curve, its lattice, the Cartesian coordinates of its atoms and its
+ * bond lengths. A record is a read-only view over its bytes, so values read from a mapped index are never
+ * copied unless they are asked for as arrays.
+ * <p>
+ * Layout (big-endian): code, then size, modification time and CRC-32 of the Etot file and of the POSCAR, then
+ * the lattice parameters as text, their values, the energies, the lattice parameter, the nine lattice vector components, the
+ * number of hydrogens, the coordinates of each atom and the bond lengths.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class CellRecord {
+
+    static final int sources = 2;
+
+    private final ByteBuffer buffer;
+    private final String code;
+    private final int stampsOffset;
+    private final int parametersOffset;
+    private final int valuesOffset;
+    private final int energiesOffset;
+    private final int size;
+    private final int latticeOffset;
+    private final int atomsOffset;
+    private final int atoms;
+    private final int distancesOffset;
+    private final int distances;
+
+    /**
+     * @param buffer the bytes of the record, from position zero to the limit.
+     */
+    CellRecord(ByteBuffer buffer) {
+        this.buffer = buffer;
+        int offset = 0;
+        code = readText(buffer, offset);
+        offset += 2 + buffer.getShort(offset);
+        stampsOffset = offset;
+        offset += sources * 3 * 8;
+        size = buffer.getInt(offset);
+        offset += 4;
+        parametersOffset = offset;
+        for (int i = 0; i < size; i++)
+            offset += 2 + buffer.getShort(offset);
+        valuesOffset = offset;
+        offset += 8 * size;
+        energiesOffset = offset;
+        offset += 8 * size;
+        latticeOffset = offset;
+        offset += 10 * 8 + 4;
+        atoms = buffer.getInt(offset);
+        offset += 4;
+        atomsOffset = offset;
+        offset += 3 * 8 * atoms;
+        distances = buffer.getInt(offset);
+        distancesOffset = offset + 4;
+    }
+
+    static String readText(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(offset + 2 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    ByteBuffer bytes() {
+        return buffer.duplicate();
+    }
+
+    long sizeOf(int source) {
+        return buffer.getLong(stampsOffset + 24 * source);
+    }
+
+    long lastModifiedOf(int source) {
+        return buffer.getLong(stampsOffset + 24 * source + 8);
+    }
+
+    long checksumOf(int source) {
+        return buffer.getLong(stampsOffset + 24 * source + 16);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double energyAt(int index) {
+        return buffer.getDouble(energiesOffset + 8 * index);
+    }
+
+    public double parameterValueAt(int index) {
+        return buffer.getDouble(valuesOffset + 8 * index);
+    }
+
+    /**
+     * @return the energy curve of the cell, built without parsing the Etot or the stored parameters again.
+     */
+    public EtotCurve curve() {
+        String[] parameters = new String[size];
+        double[] parameterValues = new double[size];
+        double[] energies = new double[size];
+        for (int i = 0, offset = parametersOffset; i < size; i++) {
+            parameters[i] = readText(buffer, offset);
+            offset += 2 + buffer.getShort(offset);
+            parameterValues[i] = parameterValueAt(i);
+            energies[i] = energyAt(i);
+        }
+        return new EtotCurve(parameters, parameterValues, energies);
+    }
+
+    public double getLatticeParameter() {
+        return buffer.getDouble(latticeOffset);
+    }
+
+    /**
+     * @param i the index of the lattice vector.
+     * @param j the index of the component.
+     * @return the (unscaled) component of the lattice vector.
+     */
+    public double latticeVectorAt(int i, int j) {
+        return buffer.getDouble(latticeOffset + 8 + 8 * (3 * i + j));
+    }
+
+    public int getNumberOfH() {
+        return buffer.getInt(latticeOffset + 80);
+    }
+
+    public int getNumberOfAtoms() {
+        return atoms;
+    }
+
+    /**
+     * @param atom  the index of the atom, carbons first.
+     * @param coord the index of the coordinate.
+     * @return the Cartesian coordinate (in angstroms) of the atom.
+     */
+    public double cartesianCoordinateAt(int atom, int coord) {
+        return buffer.getDouble(atomsOffset + 8 * (3 * atom + coord));
+    }
+
+    /**
+     * @return a read-only view of the bond lengths, in the same order as the ones of a Cell.
+     */
+    public List<Double> getRelevantDistances() {
+        return new DistanceView();
+    }
+
+    private final class DistanceView extends AbstractList<Double> implements RandomAccess {
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= distances)
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + distances);
+            return buffer.getDouble(distancesOffset + 8 * index);
+        }
+
+        @Override
+        public int size() {
+            return distances;
+        }
+    }
+
+}
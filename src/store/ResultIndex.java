@@ -0,0 +1,266 @@
+package store;
+
+import basics.BasicParser;
+import basics.TokenizedFile;
+import bounds.Cell;
+import bounds.PoscarFile;
+import energy.EtotCurve;
+import energy.EtotParser;
+import metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary index of the parsed results of each cell, kept on disk between runs. The index file is memory-mapped
+ * and its records are read in place; a record is only rebuilt from the text files when its Etot or POSCAR no
+ * longer has the size, modification time or checksum it was built from. A record is built from a single read
+ * of each file, which is both checksummed and parsed.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public final class ResultIndex {
+
+    private static final int magic = 0x47524958;
+    private static final int version = 2;
+
+    private final Path path;
+    private final Map<String, CellRecord> records = new LinkedHashMap<>();
+    private boolean modified;
+
+    private ResultIndex(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @return the path of the index inside the resource directory.
+     */
+    public static String defaultPath() {
+        return BasicParser.resourcePath("cache/results.idx");
+    }
+
+    /**
+     * Opens an index, mapping its records if the file exists. An unreadable index is simply started over.
+     *
+     * @param filePath the index file path.
+     * @return the index.
+     */
+    public static ResultIndex open(String filePath) {
+        ResultIndex index = new ResultIndex(Paths.get(filePath));
+        if (Files.isRegularFile(index.path)) {
+            try {
+                index.map();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                index.records.clear();
+            }
+        }
+        return index;
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != magic || buffer.getInt(4) != version)
+                throw new IOException("Not a result index: " + path);
+            int count = buffer.getInt(8);
+            int offset = 12;
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getInt(offset);
+                ByteBuffer slice = buffer.duplicate();
+                slice.position(offset + 4).limit(offset + 4 + length);
+                CellRecord record = new CellRecord(slice.slice());
+                records.put(record.getCode(), record);
+                offset += 4 + length;
+            }
+        }
+    }
+
+    /**
+     * Gets the results of a cell, rebuilding them from the text files if they are stale or missing.
+     *
+     * @param cellCode the cell code.
+     * @return the record of the cell.
+     * @throws IOException if the files of the cell could not be read.
+     */
+    public CellRecord get(String cellCode) throws IOException {
+        String[] files = sourcesOf(cellCode);
+        CellRecord record;
+        synchronized (this) {
+            record = records.get(cellCode);
+        }
+        if (record != null) {
+            boolean unchanged = true;
+            boolean touched = false;
+            for (int source = 0; source < CellRecord.sources && unchanged; source++) {
+                if (BasicParser.size(files[source]) != record.sizeOf(source))
+                    unchanged = false;
+                else if (BasicParser.lastModified(files[source]) != record.lastModifiedOf(source)) {
+                    unchanged = checksum(files[source]) == record.checksumOf(source);
+                    touched = true;
+                }
+            }
+            if (unchanged && !touched) {
+                Metrics.increment(Metrics.Counter.INDEX_HITS);
+                return record;
+            }
+            Metrics.increment(unchanged ? Metrics.Counter.INDEX_HITS : Metrics.Counter.INDEX_MISSES);
+            if (unchanged)
+                record = restamped(record, files);
+            else
+                record = build(cellCode, files);
+        } else {
+            Metrics.increment(Metrics.Counter.INDEX_MISSES);
+            record = build(cellCode, files);
+        }
+        synchronized (this) {
+            records.put(cellCode, record);
+            modified = true;
+        }
+        return record;
+    }
+
+    /**
+     * @param cellCode the cell code.
+     * @return the energy curve of the cell.
+     * @throws IOException if the files of the cell could not be read.
+     */
+    public EtotCurve curve(String cellCode) throws IOException {
+        return get(cellCode).curve();
+    }
+
+    /**
+     * @return the paths of the Etot file and the POSCAR of a cell, which may be inside an archived resource root.
+     */
+    private static String[] sourcesOf(String cellCode) {
+        return new String[]{EtotParser.filePathFor(cellCode), Cell.filePathFor(cellCode)};
+    }
+
+    private static long checksum(String file) throws IOException {
+        CRC32 crc = new CRC32();
+        if (BasicParser.isArchived(file)) {
+            crc.update(BasicParser.read(file));
+            return crc.getValue();
+        }
+        byte[] chunk = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(Paths.get(file))) {
+            for (int read = in.read(chunk); read >= 0; read = in.read(chunk))
+                crc.update(chunk, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    private static CellRecord restamped(CellRecord record, String[] files) {
+        ByteBuffer bytes = record.bytes();
+        ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+        copy.put(bytes).flip();
+        int stampsOffset = 2 + copy.getShort(0);
+        for (int source = 0; source < CellRecord.sources; source++)
+            copy.putLong(stampsOffset + 24 * source + 8, BasicParser.lastModified(files[source]));
+        return new CellRecord(copy);
+    }
+
+    private static CellRecord build(String cellCode, String[] files) throws IOException {
+        for (String file : files)
+            if (!BasicParser.exists(file))
+                throw new IOException("Missing file for cell " + cellCode + ": " + file);
+        long[] stamps = new long[3 * CellRecord.sources];
+        ByteBuffer[] contents = new ByteBuffer[CellRecord.sources];
+        for (int source = 0; source < CellRecord.sources; source++) {
+            stamps[3 * source + 1] = BasicParser.lastModified(files[source]);
+            contents[source] = BasicParser.read(files[source]);
+            stamps[3 * source] = contents[source].remaining();
+            CRC32 crc = new CRC32();
+            crc.update(contents[source].duplicate());
+            stamps[3 * source + 2] = crc.getValue();
+        }
+        TokenizedFile etot = TokenizedFile.of(contents[0]);
+        Metrics.add(Metrics.Counter.BYTES_READ, etot.byteCount());
+        Metrics.add(Metrics.Counter.TOKENS_PARSED, etot.tokenCount());
+        EtotCurve curve = new EtotCurve(etot);
+        Cell cell = new Cell(cellCode, PoscarFile.of(contents[1]));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeText(out, cellCode);
+        for (long stamp : stamps)
+            out.writeLong(stamp);
+        out.writeInt(curve.size());
+        for (int i = 0; i < curve.size(); i++)
+            writeText(out, curve.parameterAt(i));
+        for (int i = 0; i < curve.size(); i++)
+            out.writeDouble(curve.getSeries().parameterAt(i));
+        for (int i = 0; i < curve.size(); i++)
+            out.writeDouble(curve.energyAt(i));
+        out.writeDouble(cell.getLatticeParameter());
+        for (double[] vector : cell.getLatticeVectors())
+            for (double component : vector)
+                out.writeDouble(component);
+        out.writeInt(cell.getNumberOfH());
+        double[][] coordinates = cell.getCartesianCoordinates();
+        out.writeInt(coordinates.length);
+        for (double[] atom : coordinates)
+            for (double coordinate : atom)
+                out.writeDouble(coordinate);
+        List<Double> distances = cell.getRelevantDistances();
+        out.writeInt(distances.size());
+        for (double distance : distances)
+            out.writeDouble(distance);
+        out.flush();
+        return new CellRecord(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the index back to disk if any record was rebuilt. The new file replaces the old one atomically.
+     *
+     * @throws IOException if the index could not be written.
+     */
+    public synchronized void save() throws IOException {
+        if (!modified)
+            return;
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(12);
+            header.putInt(magic).putInt(version).putInt(records.size()).flip();
+            channel.write(header);
+            for (CellRecord record : records.values()) {
+                ByteBuffer bytes = record.bytes();
+                ByteBuffer length = ByteBuffer.allocate(4);
+                length.putInt(bytes.remaining()).flip();
+                channel.write(length);
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        modified = false;
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+}
@@ -1,6 +1,7 @@
 package test;
 
 import basics.BasicParser;
+import basics.TokenizedFile;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -43,4 +44,25 @@ public class BasicParserTest {
         assert parsedPOSCAR[13].length == 3;
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testTokenizedEtot() {
+        TokenizedFile tokenizedEtot = BasicParser.tokenizedFile("res/etot/results/0000.dat");
+        assert tokenizedEtot.lineCount() == 17;
+        assert tokenizedEtot.fieldCount(0) == 9;
+        assert tokenizedEtot.textAt(0, 0).equals("1.404");
+        assert tokenizedEtot.intAt(0, 1) == 1;
+        assert tokenizedEtot.doubleAt(0, 5) == -40.400908;
+        assert tokenizedEtot.doubleAt(16, 5) == Double.valueOf(parsedEtot[16][5]);
+    }
+
+    @Test
+    public void testTokenizedPOSCAR() {
+        TokenizedFile tokenizedPOSCAR = BasicParser.tokenizedFile("res/poscar/POSCAR0000");
+        assert tokenizedPOSCAR.lineCount() == parsedPOSCAR.length;
+        assert tokenizedPOSCAR.fieldCount(9) == 6;
+        assert tokenizedPOSCAR.doubleAt(1, 0) == 1.412;
+        assert tokenizedPOSCAR.doubleAt(2, 0) == Double.valueOf(parsedPOSCAR[2][0]);
+        assert tokenizedPOSCAR.doubleAt(13, 0) == 0.0;
+    }
+
+}
@@ -0,0 +1,75 @@
+package test;
+
+import org.junit.*;
+import statistics.CampaignStatistics;
+import statistics.Composition;
+import statistics.Histogram;
+import statistics.WeightedStatistics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit testing for CampaignStatistics.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class CampaignStatisticsTest {
+
+    private final List<String> cellCodes = Arrays.asList("0000", "0001", "0011", "1122");
+    private final List<String> degeneracies = Arrays.asList("1", "8", "4", "2");
+
+    @Test
+    public void testWeightedStatisticsCombine() {
+        double[] values = {1.0, 2.5, -3.0, 4.25, 0.5, 7.0};
+        double[] weights = {1, 8, 4, 2, 3, 1};
+        WeightedStatistics whole = new WeightedStatistics();
+        WeightedStatistics first = new WeightedStatistics();
+        WeightedStatistics second = new WeightedStatistics();
+        double sum = 0.0, weight = 0.0;
+        for (int i = 0; i < values.length; i++) {
+            whole.accept(values[i], weights[i]);
+            (i < 2 ? first : second).accept(values[i], weights[i]);
+            sum += values[i] * weights[i];
+            weight += weights[i];
+        }
+        double mean = sum / weight, squares = 0.0;
+        for (int i = 0; i < values.length; i++)
+            squares += weights[i] * (values[i] - mean) * (values[i] - mean);
+        first.combine(second);
+        assert Math.abs(whole.getMean() - mean) < 1e-12 && Math.abs(first.getMean() - mean) < 1e-12;
+        assert Math.abs(first.getStandardDeviation() - Math.sqrt(squares / weight)) < 1e-12;
+        assert first.getCount() == 6 && first.getWeight() == 19.0;
+        assert first.getMin() == -3.0 && first.getMax() == 7.0;
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram(1.0, 2.0, 10);
+        histogram.accept(1.05, 2);
+        histogram.accept(0.5, 1);
+        Histogram other = histogram.emptyCopy();
+        other.accept(1.99, 3);
+        other.accept(2.0, 1);
+        histogram.combine(other);
+        assert histogram.countAt(0) == 2 && histogram.countAt(9) == 3;
+        assert histogram.getUnderflow() == 1 && histogram.getOverflow() == 1;
+        assert histogram.getTotal() == 7;
+    }
+
+    @Test
+    public void testCampaignDoesNotDependOnParallelism() {
+        CampaignStatistics sequential = CampaignStatistics.of(cellCodes, degeneracies, 1, null);
+        CampaignStatistics parallel = CampaignStatistics.of(cellCodes, degeneracies, 4, null);
+        assert sequential.getEnergies().getWeight() == 15.0;
+        assert sequential.getEnergies().getMin() == -55.374149;
+        assert sequential.getCarbonBonds().getCount() == 16;
+        assert sequential.getHydrogenBonds().getCount() == 7;
+        assert sequential.getCarbonHistogram().getTotal() == 4 * 15;
+        assert sequential.energiesOf(new Composition(2, 2)).getWeight() == 2.0;
+        assert Math.abs(sequential.getEnergies().getMean() - parallel.getEnergies().getMean()) < 1e-12;
+        assert Arrays.equals(sequential.getHydrogenHistogram().getCounts(), parallel.getHydrogenHistogram().getCounts());
+    }
+
+}
@@ -0,0 +1,67 @@
+package test;
+
+import bounds.Cell;
+import bounds.CellBatch;
+import bounds.PoscarFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit testing for CellBatch.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class CellBatchTest {
+
+    private List<String> cellCodes;
+    private CellBatch batch;
+
+    @Before
+    public void setBatch() {
+        cellCodes = Arrays.asList("0000", "0001", "0011", "1122");
+        batch = new CellBatch(cellCodes);
+    }
+
+    @Test
+    public void testNumberOfH() {
+        assert batch.size() == 4;
+        assert batch.getNumberOfH(0) == 0;
+        assert batch.getNumberOfH(1) == 1;
+        assert batch.getNumberOfH(3) == 4;
+    }
+
+    @Test
+    public void testSameDistancesAsCell() {
+        for (int i = 0; i < cellCodes.size(); i++)
+            assert batch.getRelevantDistances(i).equals(new Cell(cellCodes.get(i)).getRelevantDistances());
+    }
+
+    @Test
+    public void testLabelledCodeHasTheSitesOfTheCell() {
+        Cell labelled = new Cell("0011-ab", PoscarFile.forCell("0011"));
+        assert labelled.getRelevantDistances().equals(new Cell("0011").getRelevantDistances());
+    }
+
+    @Test
+    public void testMalformedCodesAreRejected() {
+        for (String code : new String[]{"00110", "001", "0011-", "0011ab", "00a1"}) {
+            try {
+                new Cell(code, PoscarFile.forCell("0011"));
+                assert false;
+            } catch (IllegalArgumentException e) {
+                assert e.getMessage().contains(code);
+            }
+            try {
+                new CellBatch(Arrays.asList("0000", code));
+                assert false;
+            } catch (IllegalArgumentException e) {
+                assert e.getMessage().contains(code);
+            }
+        }
+    }
+
+}
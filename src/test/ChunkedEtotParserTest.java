@@ -0,0 +1,130 @@
+package test;
+
+import basics.BasicParser;
+import basics.TokenizedFile;
+import energy.ChunkedEtotParser;
+import energy.EnergySeries;
+import energy.EtotCurve;
+import energy.EtotParser;
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Unit testing for ChunkedEtotParser.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ChunkedEtotParserTest {
+
+    private Path scan;
+
+    @Before
+    public void createScan() throws IOException {
+        scan = Files.createTempFile("scan", ".dat");
+    }
+
+    @After
+    public void removeScan() throws IOException {
+        Files.deleteIfExists(scan);
+    }
+
+    private static void assertSameSeries(EnergySeries chunked, EnergySeries whole) {
+        assert Arrays.equals(chunked.getParameters(), whole.getParameters());
+        assert Arrays.equals(chunked.getEnergies(), whole.getEnergies());
+        assert chunked.getSmallestIndex() == whole.getSmallestIndex();
+        assert chunked.isGlobalMinimum() == whole.isGlobalMinimum();
+    }
+
+    private static EnergySeries tokenizedSeries(Path file) {
+        TokenizedFile tokens = BasicParser.tokenizedFile(file.toString());
+        return new EnergySeries(tokens.doubleColumn(0), tokens.doubleColumn(5));
+    }
+
+    @Test
+    public void testSameAsTokenizedEtot() throws IOException {
+        ChunkedEtotParser parser = new ChunkedEtotParser(3, 64);
+        for (String cellCode : new String[]{"0000", "0001", "0011", "1122"}) {
+            Path file = Paths.get(EtotParser.filePathFor(cellCode));
+            assertSameSeries(parser.series(file), tokenizedSeries(file));
+        }
+        Path problematic = Paths.get(BasicParser.resourcePath("etot/tests/0000problematic.dat"));
+        EnergySeries series = parser.series(problematic);
+        assert !series.isGlobalMinimum();
+        assertSameSeries(series, tokenizedSeries(problematic));
+    }
+
+    @Test
+    public void testSweepsMergeAcrossChunks() throws IOException {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 20; trial++) {
+            StringBuilder etot = new StringBuilder();
+            int points = 200 + random.nextInt(200);
+            int bottom = random.nextInt(points);
+            int bump = trial % 2 == 0 ? -1 : bottom + 1 + random.nextInt(points - bottom);
+            for (int i = 0; i < points; i++) {
+                double energy = -40.41 + 1e-5 * Math.abs(i - bottom) - (i == bump ? 2e-5 : 0.0);
+                etot.append(String.format(Locale.ROOT, "%.3f 1 F= %.8E E0= %.8E  d E =-.404009E+02\n", 1.2 + 0.001 * i,
+                        energy, energy));
+                if (random.nextInt(50) == 0)
+                    etot.append("\n");
+            }
+            Files.write(scan, etot.toString().getBytes(StandardCharsets.US_ASCII));
+            EnergySeries whole = tokenizedSeries(scan);
+            for (long chunkSize : new long[]{1, 100, 1000, 1 << 20})
+                assertSameSeries(new ChunkedEtotParser(4, chunkSize).series(scan), whole);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLineWithoutEnergy() throws IOException {
+        Files.write(scan, "1.404 1 F= -.40400908E+02 E0= -.40400908E+02\n1.405 1 F=\n".getBytes(StandardCharsets.US_ASCII));
+        new ChunkedEtotParser(2, 16).series(scan);
+    }
+
+    @Test
+    public void testNulPaddingSeparatesFields() throws IOException {
+        String etot = "1.404 1 F= -.40400908E+02 E0= -.40400908E+02\n1.405\t1 F= -.40400911E+02 E0= -.40400911E+02\n";
+        Files.write(scan, etot.getBytes(StandardCharsets.US_ASCII));
+        EnergySeries whole = tokenizedSeries(scan);
+        byte[] padded = (etot.replace(" E0=", "\0E0=") + "\0\0\0\0\0\0\0\0").getBytes(StandardCharsets.US_ASCII);
+        Files.write(scan, padded);
+        for (long chunkSize : new long[]{1, 16, 1 << 20})
+            assertSameSeries(new ChunkedEtotParser(2, chunkSize).series(scan), whole);
+    }
+
+    @Test
+    public void testPaddedFileParsesTheSameBothWays() throws IOException {
+        Path file = Paths.get(EtotParser.filePathFor("0001"));
+        byte[] content = Files.readAllBytes(file);
+        byte[] padding = "\0\0\0\0\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] padded = Arrays.copyOf(content, content.length + padding.length);
+        System.arraycopy(padding, 0, padded, content.length, padding.length);
+        Files.write(scan, padded);
+        EnergySeries whole = tokenizedSeries(file);
+        assertSameSeries(tokenizedSeries(scan), whole);
+        assertSameSeries(new ChunkedEtotParser(2, 64).series(scan), whole);
+        assert new EtotCurve(TokenizedFile.of(scan)).size() == whole.size();
+    }
+
+    @Test
+    public void testBadLineIsNamed() throws IOException {
+        Files.write(scan, ("1.404 1 F= -.40400908E+02 E0= -.40400908E+02\n\n1.405 1 F= -.40400911E+02 E0= x\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        try {
+            new ChunkedEtotParser(2, 16).series(scan);
+            assert false;
+        } catch (IOException e) {
+            assert e.getMessage().equals("Line 3 of " + scan + " could not be parsed: field 5 is not a number");
+        }
+    }
+
+}
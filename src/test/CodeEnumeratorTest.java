@@ -0,0 +1,56 @@
+package test;
+
+import bounds.Structure;
+import configurations.CodeEnumerator;
+import configurations.SiteSymmetry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Unit testing for CodeEnumerator, against the hand-written table of the 4-site cell.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class CodeEnumeratorTest {
+
+    private Map<String, Integer> codes;
+
+    @Before
+    public void setCodes() {
+        SiteSymmetry symmetry = SiteSymmetry.of(Structure.forCell("0000"));
+        codes = new CodeEnumerator(symmetry, 2).enumerate();
+    }
+
+    @Test
+    public void testSymmetryOfFourSites() {
+        assert SiteSymmetry.of(Structure.forCell("0000")).order() == 4;
+    }
+
+    @Test
+    public void testDegeneraciesAddUp() {
+        int total = 0;
+        for (int degeneracy : codes.values())
+            total += degeneracy;
+        assert total == 81;
+    }
+
+    @Test
+    public void testSameAsEntryTable() throws FileNotFoundException {
+        Scanner sc = new Scanner(new File("res/io/entry.txt"));
+        int lines = 0;
+        while (sc.hasNextLine()) {
+            String[] splitLine = sc.nextLine().trim().split("\\s+");
+            assert codes.get(splitLine[0]) == Integer.parseInt(splitLine[1]);
+            lines++;
+        }
+        sc.close();
+        assert lines == codes.size();
+    }
+
+}
@@ -0,0 +1,70 @@
+package test;
+
+import energy.ConvergenceMonitor;
+import energy.EnergySeries;
+import energy.EtotParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Unit testing for ConvergenceMonitor.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ConvergenceMonitorTest {
+
+    @Test
+    public void testFollowsASweep() throws IOException {
+        EnergySeries series = EtotParser.energySeries("0000");
+        ConvergenceMonitor monitor = new ConvergenceMonitor(2, null);
+        for (String line : Files.readAllLines(Paths.get(EtotParser.filePathFor("0000"))))
+            monitor.acceptLine(line);
+        assert monitor.getCount() == series.size();
+        assert monitor.getSmallestEnergy() == series.getSmallestEnergy();
+        assert monitor.getIdealParameter() == series.getIdealParameter();
+        assert monitor.isGlobalMinimum();
+        ConvergenceMonitor problematic = new ConvergenceMonitor(2, null);
+        for (double energy : EtotParser.energyList("../tests/0000problematic"))
+            problematic.accept(0.0, energy);
+        assert !problematic.isGlobalMinimum() && !problematic.isBracketed();
+        assert !monitor.acceptLine("DAV:   1    -0.404E+02   -0.404E+02   -0.129E+03   512   0.3E+02");
+        assert monitor.acceptLine("   1 F= -.40400908E+02 E0= -.40400908E+02  d E =-.404009E+02");
+    }
+
+    @Test
+    public void testRepeatedEnergy() {
+        ConvergenceMonitor flat = new ConvergenceMonitor(2, null);
+        for (double energy : new double[]{-40.40, -40.41, -40.42, -40.42, -40.41})
+            flat.accept(0.0, energy);
+        assert !flat.isBracketed();
+        flat.accept(0.0, -40.40);
+        assert flat.isBracketed() && flat.getSmallestIndex() == 2;
+        ConvergenceMonitor plateau = new ConvergenceMonitor(2, null);
+        for (double energy : new double[]{-40.40, -40.42, -40.41, -40.41, -40.40})
+            plateau.accept(0.0, energy);
+        assert plateau.isBracketed();
+    }
+
+    @Test
+    public void testStopsEarly() throws IOException {
+        Path file = Files.createTempFile("sweep", ".dat");
+        try {
+            Files.copy(Paths.get(EtotParser.filePathFor("0000")), file, StandardCopyOption.REPLACE_EXISTING);
+            int[] signals = new int[1];
+            ConvergenceMonitor monitor = new ConvergenceMonitor(2, bracketed -> signals[0]++);
+            assert monitor.follow(file, 10);
+            assert signals[0] == 1;
+            assert monitor.getCount() == 11;
+            assert monitor.getIdealParameter() == 1.412;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package test;
+
+import energy.CurveFit;
+import energy.EnergySeries;
+import energy.EtotParser;
+import org.junit.Test;
+
+/**
+ * Unit testing for CurveFit.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class CurveFitTest {
+
+    @Test
+    public void testParabola() {
+        double[] parameters = {1.40, 1.41, 1.42, 1.43, 1.44};
+        double[] energies = new double[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            energies[i] = 3.0 * (parameters[i] - 1.4137) * (parameters[i] - 1.4137) - 40.0;
+        CurveFit parabola = CurveFit.parabola(new EnergySeries(parameters, energies), 5);
+        assert Math.abs(parabola.getIdealParameter() - 1.4137) < 1e-9;
+        assert Math.abs(parabola.getSmallestEnergy() + 40.0) < 1e-9;
+    }
+
+    @Test
+    public void testBirchMurnaghan() {
+        CurveFit birchMurnaghan = CurveFit.birchMurnaghan(EtotParser.energySeries("0000"));
+        assert Math.abs(birchMurnaghan.getIdealParameter() - 1.412) < 0.001;
+        assert birchMurnaghan.getUncertainty() < 0.001;
+    }
+
+}
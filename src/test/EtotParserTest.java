@@ -1,6 +1,8 @@
 package test;
 
 import org.junit.*;
+import energy.EnergySeries;
+import energy.EtotCurve;
 import energy.EtotParser;
 
 import java.util.List;
@@ -45,4 +47,32 @@ public class EtotParserTest {
         assert !EtotParser.isGlobalMinimum(problematicEnergyList);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCurveMatchesLists() {
+        EtotCurve curve = EtotParser.curve("0000");
+        assert curve.size() == 17;
+        assert curve.energyList().equals(energyList);
+        assert curve.getSmallestEnergy() == -40.410485;
+        assert curve.getIdealParameter().equals("1.412");
+        assert curve.isGlobalMinimum();
+        assert !EtotParser.curve("../tests/0000problematic").isGlobalMinimum();
+    }
+
+    @Test
+    public void testCurveIsCached() {
+        assert EtotParser.curve("0000") == EtotParser.curve("0000");
+    }
+
+    @Test
+    public void testEnergySeries() {
+        EnergySeries series = EtotParser.energySeries("0000");
+        assert series.size() == 17;
+        assert series.getSmallestEnergy() == -40.410485;
+        assert series.getSmallestIndex() == 8;
+        assert series.getIdealParameter() == 1.412;
+        assert series.isBracketed();
+        assert series.curvatureAtMinimum() > 0.0;
+        assert !EnergySeries.isGlobalMinimum(EnergySeries.unboxed(problematicEnergyList));
+    }
+
+}
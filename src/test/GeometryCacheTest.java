@@ -0,0 +1,75 @@
+package test;
+
+import bounds.Cell;
+import bounds.GeometryCache;
+import bounds.PoscarFile;
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Unit testing for GeometryCache.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class GeometryCacheTest {
+
+    /**
+     * Rewrites a POSCAR with every atom moved by the same fractional shift, and the last two atoms swapped.
+     */
+    private static PoscarFile shifted(String cellCode, double shift) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(Cell.filePathFor(cellCode)));
+        int atoms = 0;
+        for (String count : lines.get(6).trim().split("\\s+"))
+            atoms += Integer.parseInt(count);
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 9; line++)
+            text.append(lines.get(line)).append("\n");
+        for (int atom = 0; atom < atoms; atom++) {
+            int line = 9 + (atom < atoms - 2 ? atom : 2 * atoms - 3 - atom);
+            String[] fields = lines.get(line).trim().split("\\s+");
+            double x = Double.parseDouble(fields[0]) + shift;
+            text.append("  ").append(x - Math.floor(x)).append("  ").append(fields[1]).append("  ")
+                    .append(fields[2]).append("\n");
+        }
+        return PoscarFile.of(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testEquivalentStructureIsADuplicate() throws IOException {
+        GeometryCache cache = new GeometryCache();
+        GeometryCache.Entry original = cache.get("0011", PoscarFile.forCell("0011"));
+        assert original.getCode().equals("0011");
+        assert original.getRelevantDistances().equals(new Cell("0011").getRelevantDistances());
+        GeometryCache.Entry copy = cache.get("0011-moved", shifted("0011", 0.37));
+        assert copy.getCode().equals("0011");
+        assert copy.getRelevantDistances() == original.getRelevantDistances();
+        assert cache.size() == 1;
+    }
+
+    @Test
+    public void testFirstCellAskedForIsTheCanonicalOne() throws IOException {
+        GeometryCache cache = new GeometryCache();
+        GeometryCache.Entry moved = cache.get("0011-moved", shifted("0011", 0.37));
+        GeometryCache.Entry original = cache.get("0011", PoscarFile.forCell("0011"));
+        assert moved.getCode().equals("0011-moved");
+        assert original == moved;
+        assert original.getNumberOfH() == new Cell("0011").getNumberOfH();
+        assert cache.size() == 1;
+    }
+
+    @Test
+    public void testDifferentStructuresAreKept() {
+        GeometryCache cache = new GeometryCache();
+        for (String cellCode : new String[]{"0000", "0001", "0011", "1122"})
+            assert cache.get(cellCode, PoscarFile.forCell(cellCode)).getCode().equals(cellCode);
+        assert cache.size() == 4;
+    }
+
+}
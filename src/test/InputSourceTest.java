@@ -0,0 +1,234 @@
+package test;
+
+import basics.BasicParser;
+import basics.InputSource;
+import bounds.Cell;
+import energy.EtotParser;
+import metrics.Metrics;
+import org.junit.*;
+import report.ReportWriter;
+import store.ResultIndex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Unit testing for the sources of the resource tree.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class InputSourceTest {
+
+    private static final String[] cellCodes = {"0000", "0001", "0011", "1122"};
+
+    private Path directory;
+    private List<Path> files;
+
+    @Before
+    public void listResources() throws IOException {
+        directory = Files.createTempDirectory("archives");
+        try (Stream<Path> paths = Files.walk(Paths.get("res"))) {
+            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @After
+    public void removeArchives() throws IOException {
+        BasicParser.closeArchive(BasicParser.resourceRoot());
+        System.clearProperty("graphane.res");
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static String entryName(Path file, String prefix) {
+        return prefix + Paths.get("res").relativize(file).toString().replace('\\', '/');
+    }
+
+    private Path zip(String prefix) throws IOException {
+        Path archive = directory.resolve("campaign.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (Path file : files) {
+                out.putNextEntry(new ZipEntry(entryName(file, prefix)));
+                out.write(Files.readAllBytes(file));
+                out.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private Path tarGz(String prefix) throws IOException {
+        Path archive = directory.resolve("campaign.tar.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            for (Path file : files) {
+                byte[] content = Files.readAllBytes(file);
+                out.write(tarHeader(entryName(file, prefix), content.length));
+                out.write(content);
+                out.write(new byte[(512 - content.length % 512) % 512]);
+            }
+            out.write(new byte[1024]);
+        }
+        return archive;
+    }
+
+    private static byte[] tarHeader(String name, long size) {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", size));
+        put(header, 136, String.format("%011o", 1500000000L));
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = '0';
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        long checksum = 0;
+        for (byte b : header)
+            checksum += b & 0xff;
+        put(header, 148, String.format("%06o", checksum));
+        return header;
+    }
+
+    private static void put(byte[] header, int offset, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private void assertSameResults(Path archive) throws IOException {
+        try (InputSource source = InputSource.forRoot(archive.toString())) {
+            for (String cellCode : cellCodes) {
+                String poscarPath = "poscar/POSCAR" + cellCode;
+                ByteBuffer archived = source.read(poscarPath);
+                assert archived.equals(ByteBuffer.wrap(Files.readAllBytes(Paths.get("res", poscarPath))));
+                assert source.lastModified(poscarPath) > 0;
+                assert source.exists(poscarPath);
+            }
+            assert source.lastModified("poscar/POSCAR9999") == 0;
+            assert !source.exists("poscar/POSCAR9999") && !source.exists("poscar");
+        }
+
+        double[] energies = new double[cellCodes.length];
+        List<List<Double>> distances = new ArrayList<>();
+        for (int i = 0; i < cellCodes.length; i++) {
+            energies[i] = EtotParser.curve(cellCodes[i]).getSmallestEnergy();
+            distances.add(new Cell(cellCodes[i]).getRelevantDistances());
+        }
+        System.setProperty("graphane.res", archive.toString());
+        assert BasicParser.isArchived(Cell.filePathFor("0000"));
+        for (int i = 0; i < cellCodes.length; i++) {
+            assert EtotParser.curve(cellCodes[i]).getSmallestEnergy() == energies[i];
+            assert new Cell(cellCodes[i]).getRelevantDistances().equals(distances.get(i));
+        }
+        assert BasicParser.tokenizedFile(BasicParser.resourcePath("etot/results/../tests/0000problematic.dat"))
+                .lineCount() > 0;
+    }
+
+    @Test
+    public void testZipSource() throws IOException {
+        assertSameResults(zip("res/"));
+    }
+
+    @Test
+    public void testTarGzSource() throws IOException {
+        assertSameResults(tarGz(""));
+    }
+
+    @Test
+    public void testReportFromArchive() throws IOException {
+        String report = new String(Files.readAllBytes(Paths.get("res/io/output.txt")), StandardCharsets.UTF_8);
+        Path archive = tarGz("res/");
+        System.setProperty("graphane.res", archive.toString());
+        new ReportWriter().run();
+        byte[] written = Files.readAllBytes(directory.resolve("campaign-output.txt"));
+        assert Arrays.equals(written, report.getBytes(Charset.defaultCharset()));
+    }
+
+    @Test
+    public void testIndexFromArchive() throws IOException {
+        System.setProperty("graphane.res", zip("res/").toString());
+        String indexPath = directory.resolve("campaign.idx").toString();
+        ResultIndex index = ResultIndex.open(indexPath);
+        double energy = index.curve("1122").getSmallestEnergy();
+        index.save();
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        try {
+            assert ResultIndex.open(indexPath).curve("1122").getSmallestEnergy() == energy;
+            assert Metrics.valueOf(Metrics.Counter.INDEX_HITS) == 1;
+            assert Metrics.valueOf(Metrics.Counter.INDEX_MISSES) == 0;
+        } finally {
+            Metrics.setEnabled(false);
+            Metrics.reset();
+        }
+    }
+
+    @Test
+    public void testTarEntryTooBig() throws IOException {
+        Path archive = directory.resolve("huge.tar.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            out.write(tarHeader("poscar/POSCAR0000", 1L << 31));
+        }
+        try (InputSource source = InputSource.forRoot(archive.toString())) {
+            source.read("poscar/POSCAR0000");
+            assert false;
+        } catch (IOException e) {
+            assert e.getCause().getMessage().equals("Entry too big to be read: poscar/POSCAR0000");
+        }
+    }
+
+    @Test
+    public void testTarEntriesAreReleasedAndReadAgain() throws IOException {
+        byte[] poscar = Files.readAllBytes(Paths.get("res/poscar/POSCAR0011"));
+        try (InputSource source = InputSource.forRoot(tarGz("").toString())) {
+            for (int time = 0; time < 3; time++)
+                assert source.read("poscar/POSCAR0011").equals(ByteBuffer.wrap(poscar));
+            assert source.size("poscar/POSCAR0011") == poscar.length;
+        }
+    }
+
+    @Test
+    public void testChangedArchiveIsOpenedAgain() throws IOException {
+        Path archive = tarGz("");
+        System.setProperty("graphane.res", archive.toString());
+        String incar = BasicParser.resourcePath("io/INCAR");
+        assert BasicParser.read(incar).equals(ByteBuffer.wrap(Files.readAllBytes(Paths.get("res/io/INCAR"))));
+        byte[] changed = "ENCUT = 600\n".getBytes(StandardCharsets.US_ASCII);
+        long modified = Files.getLastModifiedTime(archive).toMillis();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            out.write(tarHeader("io/INCAR", changed.length));
+            out.write(changed);
+            out.write(new byte[(512 - changed.length % 512) % 512]);
+            out.write(new byte[1024]);
+        }
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(modified + 2000));
+        assert BasicParser.read(incar).equals(ByteBuffer.wrap(changed));
+        BasicParser.closeArchive(archive.toString());
+        assert !BasicParser.exists(BasicParser.resourcePath("poscar/POSCAR0000"));
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void testMissingEntry() throws IOException {
+        System.setProperty("graphane.res", zip("").toString());
+        BasicParser.read(BasicParser.resourcePath("poscar/POSCAR9999"));
+    }
+
+}
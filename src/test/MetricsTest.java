@@ -0,0 +1,46 @@
+package test;
+
+import basics.BasicParser;
+import basics.TokenizedFile;
+import energy.EtotParser;
+import metrics.Metrics;
+import org.junit.*;
+
+/**
+ * Unit testing for Metrics.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class MetricsTest {
+
+    @After
+    public void turnOff() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void testDisabledMetricsCountNothing() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+        BasicParser.tokenizedFile(EtotParser.filePathFor("0000"));
+        assert Metrics.start() == 0L;
+        assert Metrics.valueOf(Metrics.Counter.BYTES_READ) == 0;
+        assert Metrics.callsOf(Metrics.Stage.PARSE) == 0;
+    }
+
+    @Test
+    public void testParsingIsCounted() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        TokenizedFile file = BasicParser.tokenizedFile(EtotParser.filePathFor("0000"));
+        assert Metrics.valueOf(Metrics.Counter.BYTES_READ) == file.byteCount();
+        assert Metrics.valueOf(Metrics.Counter.TOKENS_PARSED) == file.tokenCount();
+        assert file.tokenCount() == 17 * 9;
+        assert Metrics.callsOf(Metrics.Stage.PARSE) == 1;
+        assert Metrics.toJson().contains("\"bytesRead\": " + file.byteCount());
+        assert Metrics.toPrometheus().contains("graphane_stage_calls_total{stage=\"parse\"} 1\n");
+    }
+
+}
@@ -0,0 +1,63 @@
+package test;
+
+import bounds.Cell;
+import bounds.NeighborFinder;
+import bounds.Structure;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit testing for NeighborFinder, using the 4-carbon cells handled by Cell as regression cases.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class NeighborFinderTest {
+
+    private static final double precision = 1e-9;
+    private static final String[] cellCodes = {"0000", "0001", "0011", "1122"};
+
+    @Test
+    public void testSpeciesAndCounts() {
+        Structure structure = Structure.forCell("1122");
+        assert structure.getNumberOfAtoms() == 8;
+        assert structure.countOf("C") == 4;
+        assert structure.countOf("H") == 4;
+        assert structure.speciesOf(4).equals("H");
+    }
+
+    @Test
+    public void testCarbonBondsOfGraphene() {
+        for (String cellCode : cellCodes) {
+            List<Double> carbonBonds = new NeighborFinder(Structure.forCell(cellCode)).bondLengths("C", "C");
+            assert carbonBonds.size() == 6;
+            for (double length : new Cell(cellCode).getRelevantDistances().subList(0, 4))
+                assert containsLength(carbonBonds, length);
+        }
+    }
+
+    @Test
+    public void testHydrogenBondsMatchCell() {
+        for (String cellCode : cellCodes) {
+            Cell cell = new Cell(cellCode);
+            List<Double> expected = new ArrayList<>(cell.getRelevantDistances().subList(4, 4 + cell.getNumberOfH()));
+            List<Double> found = new NeighborFinder(Structure.forCell(cellCode)).bondLengths("C", "H");
+            Collections.sort(expected);
+            Collections.sort(found);
+            assert found.size() == expected.size();
+            for (int i = 0; i < found.size(); i++)
+                assert Math.abs(found.get(i) - expected.get(i)) < precision;
+        }
+    }
+
+    private static boolean containsLength(List<Double> lengths, double length) {
+        for (double candidate : lengths)
+            if (Math.abs(candidate - length) < precision)
+                return true;
+        return false;
+    }
+
+}
@@ -0,0 +1,41 @@
+package test;
+
+import bounds.Cell;
+import bounds.PoscarFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Unit testing for PoscarFile.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class PoscarFileTest {
+
+    @Test
+    public void testTextIsTheFile() throws IOException {
+        PoscarFile poscar = PoscarFile.forCell("1122");
+        byte[] file = Files.readAllBytes(Paths.get(Cell.filePathFor("1122")));
+        assert poscar.bytes().remaining() == file.length;
+        assert poscar.text().equals(new String(file, Charset.defaultCharset()));
+        assert poscar.tokens() == poscar.tokens();
+        assert poscar.tokens().textAt(0, 0).equals("Hydro1122");
+    }
+
+    @Test
+    public void testSharedPoscarGivesTheSameCell() {
+        for (String cellCode : new String[]{"0000", "0001", "0011", "1122"}) {
+            PoscarFile poscar = PoscarFile.forCell(cellCode);
+            Cell shared = new Cell(cellCode, poscar);
+            Cell own = new Cell(cellCode);
+            assert shared.getNumberOfH() == own.getNumberOfH();
+            assert shared.getRelevantDistances().equals(own.getRelevantDistances());
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package test;
+
+import energy.EtotParser;
+import org.junit.*;
+import statistics.Ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit testing for Ranking.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class RankingTest {
+
+    private static List<String> codes(List<Ranking.Entry> entries) {
+        List<String> codes = new ArrayList<>();
+        for (Ranking.Entry entry : entries)
+            codes.add(entry.getCode());
+        return codes;
+    }
+
+    @Test
+    public void testCampaignRanking() {
+        Ranking ranking = new Ranking(2, EtotParser.curve("0000").getSmallestEnergy());
+        String[] cellCodes = {"0000", "0001", "0011", "1122"};
+        int[] degeneracies = {1, 8, 4, 2};
+        for (int i = 0; i < cellCodes.length; i++)
+            ranking.accept(cellCodes[i], i, EtotParser.curve(cellCodes[i]).getSmallestEnergy(), degeneracies[i]);
+        assert codes(ranking.getMostStable()).equals(Arrays.asList("1122", "0001"));
+        assert codes(ranking.getLeastStable()).equals(Arrays.asList("0011", "0001"));
+        assert ranking.getEnergiesPerH().getCount() == 3;
+        assert ranking.getEnergiesPerH().getWeight() == 14.0;
+        double expected = (EtotParser.curve("1122").getSmallestEnergy() - ranking.getReferenceEnergy()) / 4;
+        assert ranking.getMostStable().get(0).getEnergyPerH() == expected;
+    }
+
+    @Test
+    public void testBoundedHeapsKeepTheEnds() {
+        Random random = new Random(7);
+        double[] energies = new double[1000];
+        Ranking whole = new Ranking(5, 0.0);
+        Ranking first = new Ranking(5, 0.0);
+        Ranking second = new Ranking(5, 0.0);
+        for (int i = 0; i < energies.length; i++) {
+            energies[i] = -random.nextDouble();
+            whole.accept("0001", i, energies[i], 1);
+            (i % 3 == 0 ? first : second).accept("0001", i, energies[i], 1);
+        }
+        double[] sorted = energies.clone();
+        Arrays.sort(sorted);
+        List<Ranking.Entry> mostStable = whole.getMostStable();
+        List<Ranking.Entry> leastStable = whole.getLeastStable();
+        assert mostStable.size() == 5 && leastStable.size() == 5;
+        for (int i = 0; i < 5; i++) {
+            assert mostStable.get(i).getEnergyPerH() == sorted[i];
+            assert leastStable.get(i).getEnergyPerH() == sorted[sorted.length - 1 - i];
+        }
+        first.combine(second);
+        assert first.getMostStable().size() == 5 && first.getLeastStable().size() == 5;
+        for (int i = 0; i < 5; i++) {
+            assert first.getMostStable().get(i).getEnergyPerH() == mostStable.get(i).getEnergyPerH();
+            assert first.getLeastStable().get(i).getEnergyPerH() == leastStable.get(i).getEnergyPerH();
+        }
+        assert first.getEnergiesPerH().getCount() == 1000;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyRanking() {
+        new Ranking(0, 0.0);
+    }
+
+}
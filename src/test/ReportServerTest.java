@@ -0,0 +1,114 @@
+package test;
+
+import org.junit.*;
+import report.ReportServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit testing for ReportServer.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ReportServerTest {
+
+    private ReportServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new ReportServer(0, 2);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection(Proxy.NO_PROXY);
+    }
+
+    private String body(String path) throws IOException {
+        HttpURLConnection connection = get(path);
+        assert connection.getResponseCode() == 200;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] chunk = new byte[8192];
+            for (int read = in.read(chunk); read >= 0; read = in.read(chunk))
+                bytes.write(chunk, 0, read);
+        }
+        return new String(bytes.toByteArray(), Charset.defaultCharset());
+    }
+
+    @Test
+    public void testIdealParameter() throws IOException {
+        assert body("/ideal?code=0011").equals("1.443\n");
+    }
+
+    @Test
+    public void testSectionsMakeTheReport() throws IOException {
+        String report = body("/report");
+        assert report.startsWith("=============================================\nResults for the convergence");
+        for (String cellCode : new String[]{"0000", "0001", "0011", "1122"}) {
+            String section = body("/section?code=" + cellCode);
+            assert section.startsWith("#########\nCell " + cellCode + "\n");
+            assert report.contains(section);
+        }
+        assert report.endsWith(body("/section?code=1122"));
+    }
+
+    @Test
+    public void testNewInputFileRendersTheSectionsAgain() throws IOException {
+        Path resources = Files.createTempDirectory("served");
+        Path source = Paths.get("res");
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = resources.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path))
+                    Files.createDirectories(target);
+                else
+                    Files.copy(path, target);
+            }
+        }
+        System.setProperty("graphane.res", resources.toString());
+        try {
+            assert body("/section?code=0011").contains("Degeneracy: 4\n");
+            Path input = resources.resolve("io/current_entry.txt");
+            FileTime modified = Files.getLastModifiedTime(input);
+            Files.write(input, "0000 1\n0001 8\n0011 5\n1122 2".getBytes(StandardCharsets.US_ASCII));
+            Files.setLastModifiedTime(input, FileTime.fromMillis(modified.toMillis() + 2000));
+            assert body("/section?code=0011").contains("Degeneracy: 5\n");
+            assert body("/report").contains("Degeneracy: 5\n");
+        } finally {
+            System.clearProperty("graphane.res");
+            try (Stream<Path> paths = Files.walk(resources)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testBadRequests() throws IOException {
+        assert get("/section?code=9999").getResponseCode() == 404;
+        assert get("/section").getResponseCode() == 400;
+        HttpURLConnection post = get("/report");
+        post.setRequestMethod("POST");
+        assert post.getResponseCode() == 405;
+    }
+
+}
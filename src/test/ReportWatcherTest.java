@@ -0,0 +1,123 @@
+package test;
+
+import org.junit.*;
+import report.ReportWatcher;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit testing for ReportWatcher.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ReportWatcherTest {
+
+    private Path resources;
+    private Path output;
+    private byte[] expected;
+
+    @Before
+    public void copyResources() throws IOException {
+        resources = Files.createTempDirectory("watched");
+        Path source = Paths.get("res");
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = resources.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path))
+                    Files.createDirectories(target);
+                else
+                    Files.copy(path, target);
+            }
+        }
+        output = resources.resolve("io/output.txt");
+        Files.delete(output);
+        String report = new String(Files.readAllBytes(Paths.get("res/io/output.txt")), StandardCharsets.UTF_8);
+        expected = report.getBytes(Charset.defaultCharset());
+        System.setProperty("graphane.res", resources.toString());
+    }
+
+    @After
+    public void removeResources() throws IOException {
+        System.clearProperty("graphane.res");
+        try (Stream<Path> paths = Files.walk(resources)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private boolean waitFor(byte[] content) throws IOException, InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            if (Files.exists(output) && Arrays.equals(Files.readAllBytes(output), content))
+                return true;
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private boolean waitFor(String text) throws IOException, InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            if (Files.exists(output) && new String(Files.readAllBytes(output), Charset.defaultCharset()).contains(text))
+                return true;
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private static Thread startWatcher() {
+        Thread watcher = new Thread(() -> {
+            try {
+                new ReportWatcher().watch();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        watcher.setDaemon(true);
+        watcher.start();
+        return watcher;
+    }
+
+    @Test
+    public void testHalfWrittenFileDoesNotStopTheWatcher() throws Exception {
+        Thread watcher = startWatcher();
+        try {
+            assert waitFor(expected);
+            Path etot = resources.resolve("etot/results/0011.dat");
+            byte[] complete = Files.readAllBytes(etot);
+            Files.write(etot, "1.404 1 F=".getBytes(StandardCharsets.US_ASCII));
+            Thread.sleep(1000);
+            assert watcher.isAlive();
+            Files.write(etot, complete);
+            assert waitFor(expected);
+        } finally {
+            watcher.interrupt();
+            watcher.join(5000);
+        }
+    }
+
+    @Test
+    public void testChangedEtotFileRanksTheCellAgain() throws Exception {
+        Thread watcher = startWatcher();
+        try {
+            assert waitFor(expected);
+            Path etot = resources.resolve("etot/results/0011.dat");
+            byte[] original = Files.readAllBytes(etot);
+            Files.copy(resources.resolve("etot/results/1122.dat"), etot, StandardCopyOption.REPLACE_EXISTING);
+            assert waitFor("Most stable cells:\n\n1. Cell 0011: ");
+            Files.write(etot, original);
+            assert waitFor(expected);
+        } finally {
+            watcher.interrupt();
+            watcher.join(5000);
+        }
+    }
+
+}
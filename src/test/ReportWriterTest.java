@@ -0,0 +1,105 @@
+package test;
+
+import bounds.GeometryCache;
+import org.junit.*;
+import report.ReportWriter;
+import store.ResultIndex;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit testing for ReportWriter.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ReportWriterTest {
+
+    private Path resources;
+    private Path output;
+
+    @Before
+    public void copyResources() throws IOException {
+        resources = Files.createTempDirectory("report");
+        Path source = Paths.get("res");
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = resources.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path))
+                    Files.createDirectories(target);
+                else
+                    Files.copy(path, target);
+            }
+        }
+        output = resources.resolve("io/output.txt");
+        Files.delete(output);
+        System.setProperty("graphane.res", resources.toString());
+    }
+
+    @After
+    public void removeResources() throws IOException {
+        System.clearProperty("graphane.res");
+        try (Stream<Path> paths = Files.walk(resources)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testParallelReportIsTheSame() throws IOException {
+        String report = new String(Files.readAllBytes(Paths.get("res/io/output.txt")), StandardCharsets.UTF_8);
+        byte[] expected = report.getBytes(Charset.defaultCharset());
+        for (int parallelism : new int[]{1, 2, 4}) {
+            Files.deleteIfExists(output);
+            new ReportWriter(parallelism).run();
+            assert Arrays.equals(Files.readAllBytes(output), expected);
+        }
+    }
+
+    @Test
+    public void testCampaignWithoutReferenceCell() throws IOException {
+        Files.delete(resources.resolve("etot/results/0000.dat"));
+        Files.write(resources.resolve("io/current_entry.txt"), "0001 8\n0011 4".getBytes(StandardCharsets.US_ASCII));
+        for (boolean indexed : new boolean[]{false, true}) {
+            Files.deleteIfExists(output);
+            ReportWriter writer = new ReportWriter(1);
+            if (indexed)
+                writer.setIndex(ResultIndex.open(resources.resolve("campaign.idx").toString()));
+            writer.run();
+            String report = new String(Files.readAllBytes(output), Charset.defaultCharset());
+            assert report.contains("Reference cell 0000 not available: the cells are not ranked\n\n");
+            assert report.contains("#########\nCell 0001\n#########\n") && report.contains("#########\nCell 0011\n");
+            assert !report.contains("NaN");
+        }
+    }
+
+    @Test
+    public void testDuplicatesDoNotDependOnParallelism() throws IOException {
+        Files.copy(resources.resolve("poscar/POSCAR0011"), resources.resolve("poscar/POSCAR0101"));
+        Files.copy(resources.resolve("etot/results/0011.dat"), resources.resolve("etot/results/0101.dat"));
+        Files.write(resources.resolve("io/current_entry.txt"), "0101 4\n0011 4\n0000 1\n0011 4"
+                .getBytes(StandardCharsets.US_ASCII));
+        byte[] sequential = null;
+        for (int parallelism : new int[]{1, 4}) {
+            Files.deleteIfExists(output);
+            ReportWriter writer = new ReportWriter(parallelism);
+            writer.setGeometryCache(new GeometryCache());
+            writer.run();
+            byte[] report = Files.readAllBytes(output);
+            if (sequential == null)
+                sequential = report;
+            assert Arrays.equals(report, sequential);
+        }
+        String report = new String(sequential, Charset.defaultCharset());
+        assert report.contains("Cell 0011\n#########\n\nDegeneracy: 4\n\nSame structure as cell 0101\n");
+        assert !report.contains("Cell 0101\n#########\n\nDegeneracy: 4\n\nSame structure");
+    }
+
+}
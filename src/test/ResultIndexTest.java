@@ -0,0 +1,109 @@
+package test;
+
+import metrics.Metrics;
+import org.junit.*;
+import store.ResultIndex;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit testing for ResultIndex.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ResultIndexTest {
+
+    private Path resources;
+    private Path etot;
+    private String indexPath;
+    private double smallestEnergy;
+
+    @Before
+    public void copyResources() throws IOException {
+        resources = Files.createTempDirectory("index");
+        Path source = Paths.get("res");
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = resources.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path))
+                    Files.createDirectories(target);
+                else
+                    Files.copy(path, target);
+            }
+        }
+        System.setProperty("graphane.res", resources.toString());
+        etot = resources.resolve("etot/results/0011.dat");
+        indexPath = resources.resolve("campaign.idx").toString();
+        ResultIndex index = ResultIndex.open(indexPath);
+        smallestEnergy = index.curve("0011").getSmallestEnergy();
+        index.save();
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void removeResources() throws IOException {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+        System.clearProperty("graphane.res");
+        try (Stream<Path> paths = Files.walk(resources)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private void touch(Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 10000));
+    }
+
+    @Test
+    public void testUnchangedCellIsAHit() throws IOException {
+        ResultIndex index = ResultIndex.open(indexPath);
+        assert index.curve("0011").getSmallestEnergy() == smallestEnergy;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_HITS) == 1;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_MISSES) == 0;
+    }
+
+    @Test
+    public void testEditedCellIsRebuilt() throws IOException {
+        Files.write(etot, "1.435 2 F= -.43900000E+02 E0= -.43899921E+02 d E =-.328837E-03\n"
+                .getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+        ResultIndex index = ResultIndex.open(indexPath);
+        assert index.curve("0011").getSmallestEnergy() == -43.899921;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_MISSES) == 1;
+
+        String text = new String(Files.readAllBytes(etot), StandardCharsets.US_ASCII);
+        Files.write(etot, text.replace("-.43899921E+02", "-.43799921E+02").getBytes(StandardCharsets.US_ASCII));
+        touch(etot);
+        assert index.curve("0011").getSmallestEnergy() == smallestEnergy;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_MISSES) == 2;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_HITS) == 0;
+    }
+
+    @Test
+    public void testTouchedCellIsRestamped() throws IOException {
+        touch(etot);
+        ResultIndex index = ResultIndex.open(indexPath);
+        assert index.curve("0011").getSmallestEnergy() == smallestEnergy;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_HITS) == 1;
+        assert Metrics.valueOf(Metrics.Counter.INDEX_MISSES) == 0;
+        index.save();
+
+        Path saved = Paths.get(indexPath);
+        Files.setLastModifiedTime(saved, FileTime.fromMillis(0));
+        index = ResultIndex.open(indexPath);
+        assert index.curve("0011").getSmallestEnergy() == smallestEnergy;
+        index.save();
+        assert Metrics.valueOf(Metrics.Counter.INDEX_HITS) == 2;
+        assert Files.getLastModifiedTime(saved).toMillis() == 0;
+    }
+
+}
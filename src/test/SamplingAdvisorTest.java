@@ -0,0 +1,29 @@
+package test;
+
+import energy.EnergySeries;
+import energy.EtotParser;
+import energy.SamplingAdvisor;
+import org.junit.Test;
+
+/**
+ * Unit testing for SamplingAdvisor.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class SamplingAdvisorTest {
+
+    @Test
+    public void testReplayAndAdvice() {
+        SamplingAdvisor advisor = new SamplingAdvisor();
+        EnergySeries sweep = EtotParser.energySeries("0000");
+        EnergySeries replayed = advisor.replay(sweep);
+        assert replayed.size() < sweep.size() / 2;
+        assert replayed.getIdealParameter() == sweep.getIdealParameter();
+        double[] border = {1.404, 1.405, 1.406};
+        double[] descending = {-40.40, -40.41, -40.42};
+        assert advisor.advise(new EnergySeries(border, descending)).getNextParameters().size() == 1;
+        assert advisor.advise(new EnergySeries(border, descending)).getNextParameters().get(0) > 1.406;
+    }
+
+}
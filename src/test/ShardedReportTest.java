@@ -0,0 +1,68 @@
+package test;
+
+import org.junit.*;
+import report.ShardedReport;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit testing for ShardedReport.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class ShardedReportTest {
+
+    private Path directory;
+    private byte[] expected;
+
+    @Before
+    public void setShards() throws IOException {
+        directory = Files.createTempDirectory("shards");
+        String report = new String(Files.readAllBytes(Paths.get("res/io/output.txt")), StandardCharsets.UTF_8);
+        expected = report.getBytes(Charset.defaultCharset());
+    }
+
+    @After
+    public void removeShards() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testShardsInProcess() throws IOException {
+        for (ShardedReport.Partition partition : ShardedReport.Partition.values()) {
+            ShardedReport report = new ShardedReport(3, directory, partition);
+            for (int shard = 0; shard < 3; shard++)
+                report.writeShard(shard);
+            Path output = directory.resolve("output-" + partition + ".txt");
+            report.merge(output);
+            assert Arrays.equals(Files.readAllBytes(output), expected);
+        }
+    }
+
+    @Test
+    public void testWorkerProcesses() throws IOException {
+        ShardedReport report = new ShardedReport(2, directory, ShardedReport.Partition.HASH);
+        Path output = directory.resolve("output.txt");
+        report.runLocally(output);
+        assert Arrays.equals(Files.readAllBytes(output), expected);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingShard() throws IOException {
+        ShardedReport report = new ShardedReport(2, directory, ShardedReport.Partition.RANGE);
+        report.writeShard(0);
+        report.merge(directory.resolve("output.txt"));
+    }
+
+}
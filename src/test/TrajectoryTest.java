@@ -0,0 +1,86 @@
+package test;
+
+import bounds.Cell;
+import bounds.Trajectory;
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Unit testing for Trajectory.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class TrajectoryTest {
+
+    private static final int frames = 300;
+
+    private Path xdatcar;
+    private Path series;
+
+    @Before
+    public void setTrajectory() throws IOException {
+        List<String> poscar = Files.readAllLines(Paths.get(Cell.filePathFor("1122")));
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 7; line++)
+            text.append(poscar.get(line)).append("\n");
+        for (int frame = 1; frame <= frames; frame++) {
+            text.append("Direct configuration=").append(String.format("%6d", frame)).append("\n");
+            for (int atom = 0; atom < 8; atom++) {
+                String[] fields = poscar.get(9 + atom).trim().split("\\s+");
+                text.append("  ").append(fields[0]).append("  ").append(fields[1]).append("  ").append(fields[2])
+                        .append("\n");
+            }
+        }
+        xdatcar = Files.createTempFile("XDATCAR", "");
+        series = Files.createTempFile("series", ".bin");
+        Files.write(xdatcar, text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void removeTrajectory() throws IOException {
+        Files.delete(xdatcar);
+        Files.delete(series);
+    }
+
+    @Test
+    public void testFramesMatchCell() throws IOException {
+        List<Double> lengths = new Cell("1122").getRelevantDistances();
+        Trajectory trajectory = Trajectory.open(xdatcar, "1122");
+        assert trajectory.getNumberOfBonds() == lengths.size();
+        Trajectory.BondStatistics statistics;
+        try (FileChannel channel = FileChannel.open(series, StandardOpenOption.WRITE)) {
+            statistics = trajectory.analyze(3, 2000, channel);
+        }
+        assert statistics.getFrames() == frames;
+        for (int bond = 0; bond < lengths.size(); bond++) {
+            assert statistics.of(bond).getMin() == lengths.get(bond);
+            assert statistics.of(bond).getMax() == lengths.get(bond);
+        }
+        ByteBuffer rows = ByteBuffer.wrap(Files.readAllBytes(series)).order(ByteOrder.nativeOrder());
+        assert rows.remaining() == 8 * frames * lengths.size();
+        for (int frame = 0; frame < frames; frame++)
+            for (double length : lengths)
+                assert rows.getDouble() == length;
+    }
+
+    @Test
+    public void testBlockSizeDoesNotMatter() throws IOException {
+        Trajectory trajectory = Trajectory.open(xdatcar, "1122");
+        Trajectory.BondStatistics whole = trajectory.analyze(1, Long.MAX_VALUE / 2, null);
+        Trajectory.BondStatistics blocks = trajectory.analyze(4, 777, null);
+        assert whole.getFrames() == blocks.getFrames();
+        assert whole.of(4).getMean() == blocks.of(4).getMean();
+    }
+
+}
@@ -0,0 +1,78 @@
+package test;
+
+import energy.EtotCurve;
+import energy.VaspOutputScanner;
+import org.junit.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit testing for VaspOutputScanner.
+ *
+ * @author Cassio dos Santos Sousa
+ * @version 1.0
+ */
+public class VaspOutputScannerTest {
+
+    private Path sweep;
+
+    @Before
+    public void setSweep() throws IOException {
+        sweep = Files.createTempDirectory("sweep");
+        String[] parameters = {"1.41400000000000", "1.41200000000000", "1.41000000000000"};
+        double[] energies = {-40.40900, -40.410485, -40.4102};
+        for (int i = 0; i < parameters.length; i++) {
+            Path run = Files.createDirectory(sweep.resolve("run" + i));
+            write(run.resolve("POSCAR"), "Hydro0000\n   " + parameters[i] + "\n");
+            StringBuilder outcar = new StringBuilder();
+            for (int step = 0; step < 2000; step++)
+                outcar.append("  energy  without entropy=      -40.100000  energy(sigma->0) =      -40.1").append(step % 10)
+                        .append("0000\n  some other line of the OUTCAR\n");
+            outcar.append("  energy  without entropy=      ").append(energies[i]).append("  energy(sigma->0) =      ")
+                    .append(energies[i]).append("\n\n General timing and accounting informations for this job:\n");
+            write(run.resolve("OUTCAR"), outcar.toString());
+        }
+        write(sweep.resolve("run0").resolve("OSZICAR"), "DAV:   1    -0.404E+02\n   1 F= -.40400908E+02 E0= -.40409630E+02  d E =-.404009E+02\n");
+    }
+
+    @After
+    public void removeSweep() throws IOException {
+        try (Stream<Path> paths = Files.walk(sweep)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void write(Path path, String text) throws IOException {
+        Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testFinalEnergyInChunks() throws IOException {
+        Path outcar = sweep.resolve("run1").resolve("OUTCAR");
+        VaspOutputScanner unbounded = new VaspOutputScanner(1, Long.MAX_VALUE);
+        assert unbounded.getChunkSize() <= Integer.MAX_VALUE / 2;
+        double whole = unbounded.finalEnergy(outcar);
+        assert whole == -40.410485;
+        VaspOutputScanner shared = new VaspOutputScanner(4, 1000);
+        assert shared.finalEnergy(outcar) == whole;
+        assert shared.finalEnergy(outcar) == whole;
+        assert new VaspOutputScanner(3, 7).finalEnergy(outcar) == whole;
+        assert new VaspOutputScanner(2, 1000).finalEnergy(sweep.resolve("run0").resolve("OSZICAR")) == -40.40963;
+    }
+
+    @Test
+    public void testCurve() throws IOException {
+        EtotCurve curve = new VaspOutputScanner(2, 4096).curve(sweep);
+        assert curve.size() == 3;
+        assert curve.parameterAt(0).equals("1.41000000000000");
+        assert curve.getSmallestEnergy() == -40.410485;
+        assert Double.parseDouble(curve.getIdealParameter()) == 1.412;
+        assert curve.isGlobalMinimum();
+    }
+
+}